@@ -1,9 +1,21 @@
 package eecs2011;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
 public class AArrayList<E> implements List<E> {
 	public static final int DEFAULT_CAPACITY=10;
+	public static final int PARALLEL_SORT_THRESHOLD=1 << 13; //ranges smaller than this are sorted by one thread
 	private E[] data;
 	private int size=0;
+	private int modCount=0; //number of structural changes, used to make the iterators fail fast
 	
 	//Constructor
 	public AArrayList(){
@@ -43,14 +55,11 @@ public class AArrayList<E> implements List<E> {
 	 */
 	public void add(int i, E e) throws IndexOutOfBoundsException{
 		checkIndex(i,size+1);
-		if(size==data.length){
-			resize(2*data.length);//resizes the array if we run out of space to store new objects.
-		}
-		for(int k=size-1;k>=i;k--){
-			data[k+1]=data[k];
-		}
+		ensureCapacity(size+1);//resizes the array if we run out of space to store new objects.
+		System.arraycopy(data, i, data, i+1, size-i); //shifts the elements after i one spot to the right as one block
 		data[i]=e;
 		size++;
+		modCount++;
 		//Runs in O(n) time because in the worst-case, adding at the first index means that we would have to
 		//shift the other n-1 entries to the right by 1. Resizing also takes O(n) time since moving n objects
 		//from the old array to a new array also takes O(n) time.
@@ -77,11 +86,10 @@ public class AArrayList<E> implements List<E> {
 	public E remove(int i)throws IndexOutOfBoundsException{
 		checkIndex(i, size);
 		E temp = data[i];
-		for(int s=i;s<size-1;s++){
-			data[s]=data[s+1];
-		}
+		System.arraycopy(data, i+1, data, i, size-i-1); //shifts the elements after i one spot to the left as one block
 		data[size-1] = null; //sets the final index to null since everything is moved down one spot.
 		size--;
+		modCount++;
 		return temp;
 		//Runs in O(n) time because in the worst case, removing the first element of the array means that we
 		//would have to shift the remaining n-1 elements 1 to the left.
@@ -102,6 +110,321 @@ public class AArrayList<E> implements List<E> {
 		//Takes O(1) time since all entries in the array are accessible readily.
 	}
 	
+	/**
+	 * Inserts all the elements of src, in order, starting at index I and shifting the elements after this.
+	 * @param i the index where the first element of src ends up.
+	 * @param src the elements being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void addAll(int i, E[] src) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		int k = src.length;
+		ensureCapacity(size+k); //one capacity check for the whole batch
+		System.arraycopy(data, i, data, i+k, size-i); //one block move opens a gap of k slots
+		System.arraycopy(src, 0, data, i, k);
+		size+=k;
+		modCount++;
+		//Runs in O(n+k) time since the tail is shifted once no matter how many elements are inserted, instead of
+		//O(k*n) when calling add(i,e) k times.
+	}
+	
+	/**
+	 * Inserts all the elements of src, in order, starting at index I and shifting the elements after this.
+	 * @param i the index where the first element of src ends up.
+	 * @param src the list whose elements are being inserted. It may be this list.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void addAll(int i, List<? extends E> src) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		int k = src.size();
+		if(src instanceof AArrayList){
+			//Another array list can be block copied directly. Taking the array before the shift also covers
+			//the case where src is this list.
+			AArrayList<? extends E> other = (AArrayList<? extends E>) src;
+			Object[] from = (other == this) ? Arrays.copyOf(data, size) : other.data;
+			ensureCapacity(size+k);
+			System.arraycopy(data, i, data, i+k, size-i);
+			System.arraycopy(from, 0, data, i, k);
+		}
+		else{
+			ensureCapacity(size+k);
+			System.arraycopy(data, i, data, i+k, size-i);
+			int j=i;
+			for(E e:src){
+				data[j++]=e; //iterating instead of calling get(j) keeps this O(k) for linked lists too
+			}
+		}
+		size+=k;
+		modCount++;
+		//Runs in O(n+k) time for the same reason as above.
+	}
+	
+	/**
+	 * Removes the elements from index FROM (inclusive) to index TO (exclusive), shifting the elements after this.
+	 * @param from the index of the first element removed.
+	 * @param to the index after the last element removed.
+	 * @throws IndexOutOfBoundsException if from < 0, to > size or from > to.
+	 */
+	public void removeRange(int from, int to) throws IndexOutOfBoundsException{
+		if(from < 0 || to > size || from > to){
+			throw new IndexOutOfBoundsException("Illegal range provided: "+ from + " to " + to);
+		}
+		System.arraycopy(data, to, data, from, size-to); //one block move closes the gap
+		for(int k=size-(to-from);k<size;k++){
+			data[k]=null; //clears the slots that are no longer used so the objects can be garbage collected.
+		}
+		size-=to-from;
+		modCount++;
+		//Runs in O(n) time regardless of how many elements are removed.
+	}
+	
+	/**
+	 * Makes sure the list can hold at least the given number of elements without resizing again.
+	 * @param capacity the minimum capacity needed.
+	 */
+	public void ensureCapacity(int capacity){
+		if(capacity > data.length){
+			resize(Math.max(capacity, 2*data.length)); //doubling keeps single adds O(1) amortized
+		}
+		//Runs in O(n) time if the array has to grow, O(1) otherwise.
+	}
+	
+	/**
+	 * Returns a copy of the elements in an array of exactly size elements.
+	 * @return a new array holding the elements in order.
+	 */
+	public Object[] toArray(){
+		return Arrays.copyOf(data, size, Object[].class);
+		//Runs in O(n) time with a single block copy.
+	}
+	
+	/**
+	 * Sorts the list in place. The sort is stable.
+	 * @param c the comparator defining the order, or null for the natural order of the elements.
+	 */
+	public void sort(Comparator<? super E> c){
+		Arrays.sort(data, 0, size, c);
+		modCount++;
+		//Runs in O(n log n) time.
+	}
+	
+	/**
+	 * Sorts the list in place on the common ForkJoinPool. The sort is stable.
+	 * @param c the comparator defining the order, or null for the natural order of the elements.
+	 */
+	public void parallelSort(Comparator<? super E> c){
+		parallelSort(c, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Sorts the list in place using a parallel merge sort on the given pool. The data array is split in halves
+	 * until the pieces are smaller than PARALLEL_SORT_THRESHOLD, the pieces are sorted in parallel, and the halves
+	 * are merged back together. The sort is stable.
+	 * @param c the comparator defining the order, or null for the natural order of the elements.
+	 * @param pool the pool whose threads do the sorting.
+	 */
+	public void parallelSort(Comparator<? super E> c, ForkJoinPool pool){
+		if(size <= PARALLEL_SORT_THRESHOLD){
+			sort(c); //not worth splitting
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		E[] buffer = (E[]) new Object[size];
+		pool.invoke(new MergeSortTask<E>(data, buffer, 0, size, comparator(c)));
+		modCount++;
+		//Runs in O(n log n) work. With p threads the time drops to roughly O((n log n)/p + n), the extra n
+		//coming from the final merge which one thread does alone.
+	}
+	
+	/**
+	 * Searches the sorted list for the key.
+	 * @param key the element to look for.
+	 * @param c the comparator the list is sorted by, or null for the natural order.
+	 * @return the index of the key if it is found, otherwise (-(insertion point) - 1).
+	 */
+	public int binarySearch(E key, Comparator<? super E> c){
+		return Arrays.binarySearch(data, 0, size, key, c);
+		//Runs in O(log n) time.
+	}
+	
+	/**
+	 * Returns the index of the first element that is not less than the key in the sorted list.
+	 * @param key the element to compare against.
+	 * @param c the comparator the list is sorted by, or null for the natural order.
+	 * @return an index between 0 and size.
+	 */
+	public int lowerBound(E key, Comparator<? super E> c){
+		Comparator<? super E> cmp = comparator(c);
+		int lo = 0, hi = size;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(cmp.compare(data[mid], key) < 0){
+				lo = mid + 1;
+			}
+			else{
+				hi = mid;
+			}
+		}
+		return lo;
+		//Runs in O(log n) time.
+	}
+	
+	/**
+	 * Returns the index of the first element that is greater than the key in the sorted list.
+	 * @param key the element to compare against.
+	 * @param c the comparator the list is sorted by, or null for the natural order.
+	 * @return an index between 0 and size.
+	 */
+	public int upperBound(E key, Comparator<? super E> c){
+		Comparator<? super E> cmp = comparator(c);
+		int lo = 0, hi = size;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(cmp.compare(data[mid], key) <= 0){
+				lo = mid + 1;
+			}
+			else{
+				hi = mid;
+			}
+		}
+		return lo;
+		//Runs in O(log n) time.
+	}
+	
+	/**
+	 * Returns an iterator over the elements in order.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new ArrayIterator();
+	}
+	
+	/**
+	 * Returns a spliterator over the elements. It splits the data array in halves, so parallel streams divide
+	 * the work evenly.
+	 * @return a SIZED and SUBSIZED spliterator that fails fast like the iterator.
+	 */
+	public Spliterator<E> spliterator(){
+		return new ArraySpliterator(0, size, modCount);
+	}
+	
+	//Returns c, or the natural ordering if c is null.
+	@SuppressWarnings("unchecked")
+	private static <E> Comparator<? super E> comparator(Comparator<? super E> c){
+		return (c != null) ? c : (Comparator<? super E>) Comparator.naturalOrder();
+	}
+	
+	//Fork-join task that merge sorts a[lo, hi), using buffer[lo, hi) as scratch space.
+	private static class MergeSortTask<E> extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+		
+		private final E[] a;
+		private final E[] buffer;
+		private final int lo;
+		private final int hi;
+		private final Comparator<? super E> c;
+		
+		MergeSortTask(E[] a, E[] buffer, int lo, int hi, Comparator<? super E> c){
+			this.a = a;
+			this.buffer = buffer;
+			this.lo = lo;
+			this.hi = hi;
+			this.c = c;
+		}
+		
+		protected void compute(){
+			if(hi - lo <= PARALLEL_SORT_THRESHOLD){
+				Arrays.sort(a, lo, hi, c);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new MergeSortTask<E>(a, buffer, lo, mid, c), new MergeSortTask<E>(a, buffer, mid, hi, c));
+			if(c.compare(a[mid-1], a[mid]) <= 0){
+				return; //the two halves are already in order
+			}
+			System.arraycopy(a, lo, buffer, lo, mid-lo); //copies the left half out of the way
+			int i = lo, j = mid, k = lo;
+			while(i < mid && j < hi){
+				a[k++] = (c.compare(a[j], buffer[i]) < 0) ? a[j++] : buffer[i++]; //ties take the left side, so it is stable
+			}
+			System.arraycopy(buffer, i, a, k, mid-i); //whatever is left of the right half is already in place
+		}
+	}
+	
+	//Iterator that walks the data array and checks modCount on every step.
+	private class ArrayIterator implements Iterator<E>{
+		private int cursor = 0;
+		private final int expectedModCount = modCount;
+		
+		public boolean hasNext(){
+			return cursor < size;
+		}
+		
+		public E next(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+			if(cursor >= size){
+				throw new NoSuchElementException();
+			}
+			return data[cursor++];
+		}
+	}
+	
+	//Spliterator over data[index, fence). Splitting hands the first half to a new spliterator.
+	private class ArraySpliterator implements Spliterator<E>{
+		private int index;
+		private final int fence;
+		private final int expectedModCount;
+		
+		ArraySpliterator(int from, int to, int expectedModCount){
+			this.index = from;
+			this.fence = to;
+			this.expectedModCount = expectedModCount;
+		}
+		
+		public boolean tryAdvance(Consumer<? super E> action){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+			if(index >= fence){
+				return false;
+			}
+			action.accept(data[index++]);
+			return true;
+		}
+		
+		public void forEachRemaining(Consumer<? super E> action){
+			E[] a = data;
+			for(int k=index;k<fence;k++){
+				action.accept(a[k]);
+			}
+			index = fence;
+			if(modCount != expectedModCount){ //checked once at the end so the loop itself stays tight
+				throw new ConcurrentModificationException();
+			}
+		}
+		
+		public Spliterator<E> trySplit(){
+			int mid = (index + fence) >>> 1;
+			if(mid <= index){
+				return null;
+			}
+			Spliterator<E> prefix = new ArraySpliterator(index, mid, expectedModCount);
+			index = mid;
+			return prefix;
+		}
+		
+		public long estimateSize(){
+			return fence - index;
+		}
+		
+		public int characteristics(){
+			return ORDERED | SIZED | SUBSIZED;
+		}
+	}
+	
 	//Throws an exception if the index isn't within the bounds.
 	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
 		if(i< 0 || i>=n){
@@ -109,14 +432,12 @@ public class AArrayList<E> implements List<E> {
 		}
 	}
 	
-	//Method that creates a bigger array and copies all the entries from the old to new.
+	//Method that creates a bigger array and block copies all the entries from the old to new.
 	//Takes O(n) time.
 	private void resize(int capacity){
 		@SuppressWarnings("unchecked")
 		E[]temp = (E[]) new Object[capacity];
-		for(int j=0;j<size;j++){
-			temp[j]=data[j];
-		}
+		System.arraycopy(data, 0, temp, 0, size);
 		data = temp;
 	}
 	
@@ -1,10 +1,34 @@
 package eecs2011;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+
 public class AQueue<E> implements Queue<E>{
 	public static final int DEFAULT_CAPACITY = 10; 
+	
+	/** What enqueue does when the queue already holds capacity elements. */
+	public enum Overflow{
+		/** Throw an IllegalStateException (the original behaviour). */
+		THROW,
+		/** Drop the new element. */
+		REJECT,
+		/** Drop the oldest element to make room for the new one. */
+		OVERWRITE,
+		/** Double the capacity, so the queue is unbounded. */
+		GROW
+	}
+	
 	private int size=0; //current number of elements in the array
 	private int front=0; //index of the front element
-	private E[] data;
+	private E[] data; //its length is always a power of two, so indices wrap around with a bitmask
+	private int mask; //data.length - 1
+	private int capacity; //most elements the queue holds before the overflow policy applies
+	private final Overflow overflow;
+	private int modCount=0; //number of enqueues and dequeues, used to make the iterators fail fast
 	
 	//Constructors
 	/** Initializes the queue with default space. */
@@ -12,9 +36,26 @@ public class AQueue<E> implements Queue<E>{
 		this(DEFAULT_CAPACITY); //Creates an array of default length 
 	}
 	
-	@SuppressWarnings("unchecked")
+	/** Initializes a queue that holds up to capacity elements and throws when it is full. */
 	public AQueue(int capacity){
-		data = (E[]) new Object[capacity];
+		this(capacity, Overflow.THROW);
+	}
+	
+	/**
+	 * Initializes a queue with the given capacity and overflow policy. The array is rounded up to a power of two,
+	 * but a bounded queue still applies its policy at exactly capacity elements.
+	 * @param capacity the number of elements the queue holds before the policy applies (the starting capacity for GROW).
+	 * @param overflow what to do when an element is enqueued while the queue is full.
+	 */
+	@SuppressWarnings("unchecked")
+	public AQueue(int capacity, Overflow overflow){
+		if(capacity < 0 || capacity > 1 << 30){
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		data = (E[]) new Object[powerOfTwo(Math.max(1, capacity))];
+		mask = data.length - 1;
+		this.capacity = (overflow == Overflow.GROW) ? data.length : capacity;
+		this.overflow = overflow;
 	}
 	
 	//Methods
@@ -51,17 +92,52 @@ public class AQueue<E> implements Queue<E>{
 	
 	/**
 	 * Inserts an element at the rear of the queue by using modular arithmetic to find the end of queue. 
+	 * If the queue is full, the overflow policy decides whether to throw, drop e, drop the front element or grow.
 	 * @param e the object to be inserted in the back.
+	 * @throws IllegalStateException if the queue is full and its policy is THROW.
 	 */
 	public void enqueue(E e){
-		if(this.size == data.length){
+		if(this.size == capacity && overflow == Overflow.THROW){
 			throw new IllegalStateException("Cannot add element. Queue is full");//Throws an exception if queue is full
 		}
-		int back = (front + size)%data.length; //uses modular arithmetic to choose where to put the last element. Makes it more efficient to use this than shift every element like the standard approach
+		offer(e);
+		//Takes O(1) time, amortized for GROW.
+	}
+	
+	/**
+	 * Inserts an element at the rear of the queue unless it is full and its policy rejects the element.
+	 * A full THROW queue rejects like a REJECT queue instead of throwing.
+	 * @param e the object to be inserted in the back.
+	 * @return true if e was added, false if it was rejected.
+	 * @throws IllegalStateException if a GROW queue already has the largest possible array.
+	 */
+	public boolean offer(E e){
+		if(this.size == capacity){
+			switch(overflow){
+				case GROW:
+					if(data.length == 1 << 30){
+						throw new IllegalStateException("Cannot add element. Queue is too large");
+					}
+					resize(2*data.length);
+					break;
+				case OVERWRITE:
+					if(capacity == 0){
+						return false;
+					}
+					dequeue(); //drops the oldest element to make room
+					break;
+				default:
+					return false;
+			}
+		}
+		int back = (front + size) & mask; //same as (front + size) % data.length since the length is a power of two, but without a division
 		data[back] = e;
 		this.size++;
+		this.modCount++;
+		return true;
 		//Takes O(1) time because we already calculated the final index for storing data by using modular arithmetic. 
-		//Accessing and storing an element in an array takes constant time in this case.
+		//Accessing and storing an element in an array takes constant time in this case. Growing takes O(n) time,
+		//but only happens after n enqueues, so it is O(1) amortized.
 	}
 		
 	/**
@@ -74,8 +150,9 @@ public class AQueue<E> implements Queue<E>{
 		}
 		E temp = data[front];
 		data[front] = null;
-		front = (front + 1)%data.length; //uses modular arithmetic to redefine the front of the queue. This is more efficient in terms of the run time.
+		front = (front + 1) & mask; //uses modular arithmetic to redefine the front of the queue. This is more efficient in terms of the run time.
 		this.size--;
+		this.modCount++;
 		return temp;
 		//Classical implementation of this method would've taken O(n) time as we would've had to shift n-1 elements
 		//to the left one spot after removing the previous first element. With the use of modular arithmetic,
@@ -83,10 +160,192 @@ public class AQueue<E> implements Queue<E>{
 		//which we can reference.
 	}
 
+	/**
+	 * Inserts the elements of the array at the rear of the queue, in order, with at most two block copies (the
+	 * free part of the ring may wrap around the end of the array). If they do not all fit, THROW throws without
+	 * adding any, GROW grows once to fit them all, REJECT adds only the leading elements that fit, and OVERWRITE
+	 * drops as many of the oldest elements as needed (keeping only the last capacity elements of a batch larger
+	 * than the queue).
+	 * @param elements the elements to be inserted in the back.
+	 * @throws IllegalStateException if the elements do not fit and the policy is THROW.
+	 */
+	public void enqueueAll(E[] elements){
+		int from = makeRoom(elements.length);
+		int count = Math.min(elements.length - from, capacity - size);
+		int back = (front + size) & mask;
+		int first = Math.min(count, data.length - back); //the part that fits before the end of the array
+		System.arraycopy(elements, from, data, back, first);
+		System.arraycopy(elements, from + first, data, 0, count - first);
+		this.size += count;
+		this.modCount++;
+		//Takes O(k) time for k elements, as two block copies instead of k separate enqueues.
+	}
+	
+	/**
+	 * Inserts the elements of the list at the rear of the queue, in order. A full queue is handled as in
+	 * enqueueAll(E[]): the policy is applied once for the whole batch.
+	 * @param elements the elements to be inserted in the back.
+	 * @throws IllegalStateException if the elements do not fit and the policy is THROW.
+	 */
+	public void enqueueAll(List<? extends E> elements){
+		int n = elements.size();
+		int from = makeRoom(n);
+		int count = Math.min(n - from, capacity - size);
+		Iterator<? extends E> it = elements.iterator();
+		for(int k=0;k<from;k++){
+			it.next();
+		}
+		int back = (front + size) & mask;
+		for(int k=0;k<count;k++){
+			data[(back + k) & mask] = it.next();
+		}
+		this.size += count;
+		this.modCount++;
+		//Takes O(k) time for k elements, with one capacity check for the whole batch.
+	}
+	
+	/**
+	 * Removes up to maxElements elements from the front and passes them to the consumer in order.
+	 * @param consumer receives the removed elements.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 */
+	public int drainTo(Consumer<? super E> consumer, int maxElements){
+		int count = Math.max(0, Math.min(maxElements, size));
+		int k = 0;
+		try{
+			for(;k<count;k++){
+				int slot = (front + k) & mask;
+				consumer.accept(data[slot]);
+				data[slot] = null;
+			}
+		}
+		finally{
+			front = (front + k) & mask; //if the consumer throws, only the elements it accepted are removed
+			this.size -= k;
+			this.modCount++;
+		}
+		return count;
+		//Takes O(k) time, updating front and size once for the whole batch.
+	}
+	
+	/**
+	 * Removes up to maxElements elements from the front and stores them in target starting at offset, with at most
+	 * two block copies.
+	 * @param target the array receiving the elements.
+	 * @param offset the index in target of the first element.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 * @throws IndexOutOfBoundsException if offset and maxElements do not describe a range of target.
+	 */
+	public int drainTo(E[] target, int offset, int maxElements){
+		Objects.checkFromIndexSize(offset, maxElements, target.length);
+		int count = Math.min(maxElements, size);
+		int first = Math.min(count, data.length - front); //the part before the end of the array
+		System.arraycopy(data, front, target, offset, first);
+		System.arraycopy(data, 0, target, offset + first, count - first);
+		Arrays.fill(data, front, front + first, null); //so the elements can be garbage collected
+		Arrays.fill(data, 0, count - first, null);
+		front = (front + count) & mask;
+		this.size -= count;
+		this.modCount++;
+		return count;
+		//Takes O(k) time, as block copies.
+	}
+
+	/**
+	 * Returns an iterator over the elements from the front to the back, without removing them. It walks the ring
+	 * with the same modular arithmetic as enqueue and dequeue.
+	 * @return an iterator that throws ConcurrentModificationException if the queue changes while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private int k = 0; //number of elements returned so far
+			private final int expectedModCount = modCount;
+			
+			public boolean hasNext(){
+				return k < size;
+			}
+			
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(k >= size){
+					throw new NoSuchElementException();
+				}
+				return data[(front + k++) & mask];
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of elements the queue holds before its overflow policy applies.
+	 * @return the capacity; for a GROW queue this is the current array length.
+	 */
+	public int capacity(){
+		return capacity;
+	}
+	
+	//Applies the overflow policy before n elements are added. Returns how many leading elements of the batch are
+	//skipped, which is only non-zero when OVERWRITE gets more elements than it can hold.
+	private int makeRoom(int n){
+		long excess = (long) size + n - capacity;
+		if(excess <= 0){
+			return 0;
+		}
+		switch(overflow){
+			case THROW:
+				throw new IllegalStateException("Cannot add elements. Queue is full");
+			case GROW:
+				if((long) size + n > 1 << 30){
+					throw new IllegalStateException("Cannot add elements. Queue is too large");
+				}
+				resize(powerOfTwo(size + n));
+				return 0;
+			case OVERWRITE:
+				int drop = (int) Math.min(excess, size);
+				discard(drop);
+				return (int) excess - drop;
+			default:
+				return 0; //REJECT adds only what fits
+		}
+	}
+	
+	//Removes the k front elements without returning them. Takes O(k) time.
+	private void discard(int k){
+		int first = Math.min(k, data.length - front);
+		Arrays.fill(data, front, front + first, null);
+		Arrays.fill(data, 0, k - first, null);
+		front = (front + k) & mask;
+		this.size -= k;
+		this.modCount++;
+	}
+	
+	//Doubles the array and unwraps the ring so the front ends up at index 0. The ring is at most two blocks
+	//(front to the end of the array, then the start of the array), so it takes two block copies. Takes O(n) time.
+	private void resize(int length){
+		@SuppressWarnings("unchecked")
+		E[] temp = (E[]) new Object[length];
+		int first = Math.min(size, data.length - front);
+		System.arraycopy(data, front, temp, 0, first);
+		System.arraycopy(data, 0, temp, first, size - first);
+		data = temp;
+		mask = length - 1;
+		front = 0;
+		capacity = length;
+	}
+	
+	//Rounds n up to the next power of two.
+	private static int powerOfTwo(int n){
+		int p = Integer.highestOneBit(n);
+		return (p == n) ? n : p << 1;
+	}
+
 	public String toString(){
 		StringBuilder str = new StringBuilder();
 		str.append("{ ");
-		for(E element:data){
+		for(E element:this){
 			str.append(element + " ");
 		}
 		str.append("}");
@@ -0,0 +1,260 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Doubly linked list that does not allocate a node per element. The nodes live in parallel arrays: slot k holds
+ * its element in elements[k] and its links in next[k] and prev[k], with NIL (-1) standing for null. Removed slots
+ * go on a free list (chained through next[]) and are reused by later adds, so once the arrays are big enough,
+ * adding and removing allocate nothing and create no garbage. Like LArrayList it keeps a finger on the last
+ * accessed slot so sequential index access is O(1) amortized.
+ */
+public class ArenaList<E> implements List<E> {
+	public static final int DEFAULT_CAPACITY=16;
+	private static final int NIL=-1;
+	private E[] elements;
+	private int[] next;
+	private int[] prev;
+	private int head = NIL; //slot of the first element
+	private int tail = NIL; //slot of the last element
+	private int free = NIL; //first slot of the free list
+	private int used = 0; //slots [used, capacity) have never been handed out
+	private int finger = NIL; //slot accessed most recently
+	private int fingerIndex = 0; //index of the finger slot
+	private int size = 0;
+	private int modCount = 0; //number of structural changes, used to make the iterators fail fast
+
+	//Constructors
+	public ArenaList(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ArenaList(int capacity){
+		elements = (E[]) new Object[Math.max(1, capacity)];
+		next = new int[elements.length];
+		prev = new int[elements.length];
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element e to be at index I, linking a recycled slot between 2 adjacent slots.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		int after = (i == size) ? NIL : slot(i); //the slot currently at index i ends up right after the new one
+		int newest = allocate();
+		int before = (after == NIL) ? tail : prev[after];
+		elements[newest] = e;
+		prev[newest] = before;
+		next[newest] = after;
+		if(before == NIL){
+			head = newest;
+		}
+		else{
+			next[before] = newest;
+		}
+		if(after == NIL){
+			tail = newest;
+		}
+		else{
+			prev[after] = newest;
+		}
+		finger = newest;
+		fingerIndex = i;
+		size++;
+		modCount++;
+		//Runs in O(d) time where d is the distance from i to the closest of the head, the tail and the finger.
+		//No memory is allocated unless the arrays are full.
+	}
+
+	/**
+	 * Returns the element at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E get(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		return elements[slot(i)];
+		//Runs in O(d) time for the same reason as add.
+	}
+
+	/**
+	 * Removes and returns the element at index I, unlinking its slot and putting it on the free list.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E remove(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int k = slot(i);
+		int before = prev[k];
+		int after = next[k];
+		if(before == NIL){
+			head = after;
+		}
+		else{
+			next[before] = after;
+		}
+		if(after == NIL){
+			tail = before;
+		}
+		else{
+			prev[after] = before;
+		}
+		if(after != NIL){
+			finger = after;
+			fingerIndex = i;
+		}
+		else{
+			finger = before;
+			fingerIndex = i-1;
+		}
+		E temp = elements[k];
+		release(k);
+		size--;
+		modCount++;
+		return temp;
+		//Runs in O(d) time. No memory is allocated or released to the garbage collector.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int k = slot(i);
+		E temp = elements[k];
+		elements[k] = e;
+		return temp;
+		//Runs in O(d) time.
+	}
+
+	/**
+	 * Returns an iterator over the elements in order, following the next links.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private int cursor = head;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return cursor != NIL;
+			}
+
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(cursor == NIL){
+					throw new NoSuchElementException();
+				}
+				E e = elements[cursor];
+				cursor = next[cursor];
+				return e;
+			}
+		};
+	}
+
+	//Returns the slot holding index i, walking from whichever of the head, the tail or the finger is closest, and
+	//moves the finger there. Assumes i is a valid index.
+	private int slot(int i){
+		int k;
+		int j;
+		if(finger != NIL && Math.abs(i - fingerIndex) < Math.min(i, size-1-i)){
+			k = finger;
+			j = fingerIndex;
+		}
+		else if(i <= size-1-i){
+			k = head;
+			j = 0;
+		}
+		else{
+			k = tail;
+			j = size-1;
+		}
+		while(j < i){
+			k = next[k];
+			j++;
+		}
+		while(j > i){
+			k = prev[k];
+			j--;
+		}
+		finger = k;
+		fingerIndex = i;
+		return k;
+	}
+
+	//Takes a slot from the free list, or a fresh one, doubling the arrays if every slot is in use.
+	private int allocate(){
+		if(free != NIL){
+			int k = free;
+			free = next[k];
+			return k;
+		}
+		if(used == elements.length){
+			int capacity = 2*elements.length;
+			elements = Arrays.copyOf(elements, capacity);
+			next = Arrays.copyOf(next, capacity);
+			prev = Arrays.copyOf(prev, capacity);
+		}
+		return used++;
+	}
+
+	//Clears a slot and pushes it on the free list.
+	private void release(int k){
+		elements[k] = null; //so the element can be garbage collected
+		next[k] = free;
+		free = k;
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{");
+		for(int k=head;k!=NIL;k=next[k]){
+			str.append(" "+elements[k]);
+		}
+		str.append(" }");
+		return str.toString();
+	}
+}
@@ -0,0 +1,163 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Linked queue that does not allocate a node per element. It has the same head and tail design as LQueue, but the
+ * nodes are slots in two parallel arrays: elements[k] and next[k], with NIL (-1) standing for null. A dequeued
+ * slot goes on a free list and is reused by a later enqueue, so once the arrays are big enough the queue runs
+ * without allocating anything.
+ */
+public class ArenaQueue<E> implements Queue<E> {
+	public static final int DEFAULT_CAPACITY=16;
+	private static final int NIL=-1;
+	private E[] elements;
+	private int[] next;
+	private int head = NIL; //slot of the front element
+	private int tail = NIL; //slot of the back element
+	private int free = NIL; //first slot of the free list
+	private int used = 0; //slots [used, capacity) have never been handed out
+	private int size = 0;
+	private int modCount = 0; //number of enqueues and dequeues, used to make the iterators fail fast
+
+	//Constructors
+	public ArenaQueue(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ArenaQueue(int capacity){
+		elements = (E[]) new Object[Math.max(1, capacity)];
+		next = new int[elements.length];
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the queue.
+	 * @return an integer value which corresponds to the size of the queue.
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return this.size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns, but does not remove, the first element of the queue (null if empty).
+	 * @return the element stored in the head slot.
+	 */
+	public E front(){
+		if(this.isEmpty()){
+			return null;
+		}
+		return elements[head];
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue, in a recycled slot linked after the tail.
+	 * @param e the object to be inserted in the back.
+	 */
+	public void enqueue(E e){
+		int last = allocate();
+		elements[last] = e;
+		next[last] = NIL;
+		if(this.isEmpty()){
+			head = last;
+		}
+		else{
+			next[tail] = last;
+		}
+		tail = last;
+		this.size++;
+		this.modCount++;
+		//Runs in O(1) time, and allocates nothing unless every slot is in use.
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty), and recycles its slot.
+	 * @return the value stored in the head slot
+	 */
+	public E dequeue(){
+		if(this.isEmpty()){
+			return null;
+		}
+		int first = head;
+		E temp = elements[first];
+		head = next[first];
+		elements[first] = null; //so the element can be garbage collected
+		next[first] = free;
+		free = first;
+		this.size--;
+		this.modCount++;
+		if(this.size==0){
+			tail=NIL;
+		}
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns an iterator over the elements from the front to the back, without removing them.
+	 * @return an iterator that throws ConcurrentModificationException if the queue changes while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private int cursor = head;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return cursor != NIL;
+			}
+
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(cursor == NIL){
+					throw new NoSuchElementException();
+				}
+				E e = elements[cursor];
+				cursor = next[cursor];
+				return e;
+			}
+		};
+	}
+
+	//Takes a slot from the free list, or a fresh one, doubling the arrays if every slot is in use.
+	private int allocate(){
+		if(free != NIL){
+			int k = free;
+			free = next[k];
+			return k;
+		}
+		if(used == elements.length){
+			int capacity = 2*elements.length;
+			elements = Arrays.copyOf(elements, capacity);
+			next = Arrays.copyOf(next, capacity);
+		}
+		return used++;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{");
+		for(int k=head;k!=NIL;k=next[k]){
+			str.append(" "+elements[k]);
+		}
+		str.append(" }");
+		return str.toString();
+	}
+}
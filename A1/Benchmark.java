@@ -0,0 +1,990 @@
+package eecs2011;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Small driver used to compare the list and queue implementations against each other.
+ * Run it with the name of a benchmark as the first argument, e.g. "java eecs2011.Benchmark footprint".
+ * The numbers are rough (no warm-up harness) but good enough to see the differences in order of magnitude.
+ */
+public class Benchmark {
+
+	public static void main(String[] args){
+		String which = args.length > 0 ? args[0] : "footprint";
+		switch(which){
+			case "footprint": footprint(args.length > 1 ? Integer.parseInt(args[1]) : 1000000); break;
+			case "sort": sort(args.length > 1 ? Integer.parseInt(args[1]) : 4000000); break;
+			case "append": append(args.length > 1 ? Integer.parseInt(args[1]) : 8000000); break;
+			case "unrolled": unrolled(args.length > 1 ? Integer.parseInt(args[1]) : 1000000); break;
+			case "spsc": spsc(args.length > 1 ? Integer.parseInt(args[1]) : 20000000); break;
+			case "mpmc": mpmc(args.length > 1 ? Integer.parseInt(args[1]) : 4000000); break;
+			case "lfqueue": lfqueue(args.length > 1 ? Integer.parseInt(args[1]) : 4000000); break;
+			case "batch": batch(args.length > 1 ? Integer.parseInt(args[1]) : 20000000); break;
+			case "chunked": chunked(args.length > 1 ? Integer.parseInt(args[1]) : 1000000); break;
+			case "ringqueue": ringqueue(args.length > 1 ? Integer.parseInt(args[1]) : 1000000); break;
+			case "mapped": mapped(args.length > 1 ? Integer.parseInt(args[1]) : 2000000); break;
+			case "steal": steal(args.length > 1 ? Integer.parseInt(args[1]) : 34); break;
+			case "offheap": offheap(args.length > 1 ? Integer.parseInt(args[1]) : 4000000); break;
+			case "window": window(args.length > 1 ? Integer.parseInt(args[1]) : 100000); break;
+			default: System.out.println("Unknown benchmark: " + which);
+		}
+	}
+
+	//Returns the heap in use after asking the collector to clean up.
+	private static long usedHeap(){
+		Runtime rt = Runtime.getRuntime();
+		for(int k=0;k<4;k++){
+			System.gc();
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	//Returns the number of bytes the current thread has allocated so far (HotSpot specific).
+	private static long allocatedBytes(){
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Compares the heap footprint of the boxed AArrayList against the primitive lists.
+	 * Values are chosen above the Integer/Long cache range so that every boxed add allocates a new wrapper.
+	 * @param n the number of elements to add to each list.
+	 */
+	public static void footprint(int n){
+		System.out.println("Footprint of " + n + " elements (bytes per element)");
+
+		long before = usedHeap();
+		AArrayList<Integer> boxedInts = new AArrayList<Integer>(n);
+		for(int k=0;k<n;k++){
+			boxedInts.add(k, 1000 + k);
+		}
+		long after = usedHeap();
+		System.out.printf("  AArrayList<Integer> %6.2f%n", (after - before) / (double) n);
+		boxedInts = null;
+
+		before = usedHeap();
+		IntArrayList ints = new IntArrayList(n);
+		for(int k=0;k<n;k++){
+			ints.addInt(1000 + k);
+		}
+		after = usedHeap();
+		System.out.printf("  IntArrayList        %6.2f%n", (after - before) / (double) n);
+		ints = null;
+
+		before = usedHeap();
+		AArrayList<Long> boxedLongs = new AArrayList<Long>(n);
+		for(int k=0;k<n;k++){
+			boxedLongs.add(k, 1000L + k);
+		}
+		after = usedHeap();
+		System.out.printf("  AArrayList<Long>    %6.2f%n", (after - before) / (double) n);
+		boxedLongs = null;
+
+		before = usedHeap();
+		LongArrayList longs = new LongArrayList(n);
+		for(int k=0;k<n;k++){
+			longs.addLong(1000L + k);
+		}
+		after = usedHeap();
+		System.out.printf("  LongArrayList       %6.2f%n", (after - before) / (double) n);
+		longs = null;
+
+		before = usedHeap();
+		AArrayList<Double> boxedDoubles = new AArrayList<Double>(n);
+		for(int k=0;k<n;k++){
+			boxedDoubles.add(k, 0.5 + k);
+		}
+		after = usedHeap();
+		System.out.printf("  AArrayList<Double>  %6.2f%n", (after - before) / (double) n);
+		boxedDoubles = null;
+
+		before = usedHeap();
+		DoubleArrayList doubles = new DoubleArrayList(n);
+		for(int k=0;k<n;k++){
+			doubles.addDouble(0.5 + k);
+		}
+		after = usedHeap();
+		System.out.printf("  DoubleArrayList     %6.2f%n", (after - before) / (double) n);
+		doubles = null;
+	}
+
+	/**
+	 * Times AArrayList.parallelSort on pools of 1, 2, 4, ... threads up to the number of cores, against the
+	 * single threaded sort, and does the same for IntArrayList.
+	 * @param n the number of elements to sort.
+	 */
+	public static void sort(int n){
+		Random rnd = new Random(42);
+		Integer[] values = new Integer[n];
+		int[] ints = new int[n];
+		for(int k=0;k<n;k++){
+			ints[k] = rnd.nextInt();
+			values[k] = ints[k];
+		}
+		Comparator<Integer> c = Comparator.naturalOrder();
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Sorting " + n + " elements on " + cores + " cores (ms, best of 3)");
+
+		long best = Long.MAX_VALUE;
+		for(int run=0;run<3;run++){
+			AArrayList<Integer> list = new AArrayList<Integer>(n);
+			list.addAll(0, values);
+			long start = System.nanoTime();
+			list.sort(c);
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		long sequential = best;
+		System.out.printf("  AArrayList.sort            %8.1f%n", sequential / 1e6);
+		for(int p=1;p<=cores;p*=2){
+			ForkJoinPool pool = new ForkJoinPool(p);
+			best = Long.MAX_VALUE;
+			for(int run=0;run<3;run++){
+				AArrayList<Integer> list = new AArrayList<Integer>(n);
+				list.addAll(0, values);
+				long start = System.nanoTime();
+				list.parallelSort(c, pool);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			pool.shutdown();
+			System.out.printf("  AArrayList.parallelSort %2d %8.1f  (%.2fx)%n", p, best / 1e6, sequential / (double) best);
+		}
+
+		long[] times = new long[2];
+		for(int kind=0;kind<2;kind++){
+			times[kind] = Long.MAX_VALUE;
+			for(int run=0;run<3;run++){
+				IntArrayList list = new IntArrayList(n);
+				for(int k=0;k<n;k++){
+					list.addInt(ints[k]);
+				}
+				long start = System.nanoTime();
+				if(kind == 0){
+					list.sort();
+				}
+				else{
+					list.parallelSort();
+				}
+				times[kind] = Math.min(times[kind], System.nanoTime() - start);
+			}
+		}
+		System.out.printf("  IntArrayList.sort          %8.1f%n", times[0] / 1e6);
+		System.out.printf("  IntArrayList.parallelSort  %8.1f  (%.2fx)%n", times[1] / 1e6, times[0] / (double) times[1]);
+	}
+
+	//Starts the given number of threads running task, waits for all of them, and returns the elapsed nanoseconds.
+	private static long runThreads(int threads, Runnable task){
+		Thread[] workers = new Thread[threads];
+		for(int t=0;t<threads;t++){
+			workers[t] = new Thread(task);
+		}
+		long start = System.nanoTime();
+		for(Thread w:workers){
+			w.start();
+		}
+		try{
+			for(Thread w:workers){
+				w.join();
+			}
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Measures append throughput of ConcurrentAppendList against an AArrayList guarded by synchronized,
+	 * with 1, 2, 4, ... 32 producer threads sharing the same total number of appends.
+	 * @param n the total number of appends per run.
+	 */
+	public static void append(int n){
+		System.out.println("Appending " + n + " elements (million appends per second)");
+		Integer element = 12345;
+		for(int threads=1;threads<=32;threads*=2){
+			int each = n / threads;
+
+			ConcurrentAppendList<Integer> lockFree = new ConcurrentAppendList<Integer>();
+			long time = runThreads(threads, () -> {
+				for(int k=0;k<each;k++){
+					lockFree.append(element);
+				}
+			});
+			double lockFreeRate = each * (double) threads / time * 1e3;
+
+			AArrayList<Integer> locked = new AArrayList<Integer>();
+			time = runThreads(threads, () -> {
+				for(int k=0;k<each;k++){
+					synchronized(locked){
+						locked.add(locked.size(), element);
+					}
+				}
+			});
+			double lockedRate = each * (double) threads / time * 1e3;
+
+			System.out.printf("  %2d threads  ConcurrentAppendList %7.1f   synchronized AArrayList %7.1f%n", threads, lockFreeRate, lockedRate);
+		}
+	}
+
+	/**
+	 * Compares UnrolledList against LArrayList: bytes allocated while building the list, a full iteration, and
+	 * random get(i) calls.
+	 * @param n the number of elements in each list.
+	 */
+	public static void unrolled(int n){
+		System.out.println("LArrayList vs UnrolledList with " + n + " elements");
+		Integer element = 12345;
+		@SuppressWarnings("unchecked")
+		List<Integer>[] lists = (List<Integer>[]) new List<?>[]{ new LArrayList<Integer>(), new UnrolledList<Integer>() };
+		String[] names = { "LArrayList  ", "UnrolledList" };
+		for(int l=0;l<lists.length;l++){
+			List<Integer> list = lists[l];
+			long allocated = allocatedBytes();
+			for(int k=0;k<n;k++){
+				list.add(k, element);
+			}
+			allocated = allocatedBytes() - allocated;
+
+			long best = Long.MAX_VALUE;
+			long sum = 0;
+			for(int run=0;run<20;run++){
+				long start = System.nanoTime();
+				for(Integer e:list){
+					sum += e;
+				}
+				best = Math.min(best, System.nanoTime() - start);
+			}
+
+			Random rnd = new Random(7);
+			int gets = 2000;
+			long start = System.nanoTime();
+			for(int k=0;k<gets;k++){
+				sum += list.get(rnd.nextInt(n));
+			}
+			long getTime = System.nanoTime() - start;
+
+			System.out.printf("  %s  allocated %6.1f bytes/element  iterate %6.2f ns/element  random get %8.1f us  (%d)%n",
+					names[l], allocated / (double) n, best / (double) n, getTime / 1e3 / gets, sum % 10);
+		}
+	}
+
+	/**
+	 * Passes elements from one producer thread to one consumer thread through an SPSCQueue, and through an AQueue of
+	 * the same capacity guarded by synchronized. Both sides yield when the queue is full or empty, so the
+	 * numbers stay meaningful when the two threads have to share a core.
+	 * @param n the number of elements passed per run.
+	 */
+	public static void spsc(int n){
+		int capacity = 1024;
+		System.out.println("Passing " + n + " elements between two threads (million elements per second, best of 5)");
+		Integer element = 12345;
+		double best = 0;
+		for(int run=0;run<5;run++){
+			SPSCQueue<Integer> queue = new SPSCQueue<Integer>(capacity);
+			Thread consumer = new Thread(() -> {
+				for(int k=0;k<n;k++){
+					while(queue.poll() == null){
+						Thread.yield();
+					}
+				}
+			});
+			long time = runThreads(1, () -> {
+				consumer.start();
+				for(int k=0;k<n;k++){
+					while(!queue.offer(element)){
+						Thread.yield();
+					}
+				}
+				try{
+					consumer.join();
+				}
+				catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+			});
+			best = Math.max(best, n / (double) time * 1e3);
+		}
+		System.out.printf("  SPSCQueue               %7.1f%n", best);
+
+		best = 0;
+		for(int run=0;run<5;run++){
+			AQueue<Integer> queue = new AQueue<Integer>(capacity, AQueue.Overflow.REJECT);
+			Thread consumer = new Thread(() -> {
+				for(int k=0;k<n;k++){
+					while(true){
+						synchronized(queue){
+							if(queue.dequeue() != null){
+								break;
+							}
+						}
+						Thread.yield();
+					}
+				}
+			});
+			long time = runThreads(1, () -> {
+				consumer.start();
+				for(int k=0;k<n;k++){
+					while(true){
+						synchronized(queue){
+							if(queue.offer(element)){
+								break;
+							}
+						}
+						Thread.yield();
+					}
+				}
+				try{
+					consumer.join();
+				}
+				catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+			});
+			best = Math.max(best, n / (double) time * 1e3);
+		}
+		System.out.printf("  synchronized AQueue     %7.1f%n", best);
+	}
+
+	/**
+	 * Measures MPMCQueue against an AQueue guarded by synchronized with 1, 4, 16 and 64 threads. Every thread
+	 * repeatedly enqueues one element and dequeues one, so the threads act as producers and consumers at once.
+	 * Besides throughput it reports the latency percentiles of an enqueue/dequeue pair, timed on every 16th pair.
+	 * @param n the total number of pairs per run, shared between the threads.
+	 */
+	public static void mpmc(int n){
+		int capacity = 1024;
+		System.out.println("Enqueue/dequeue pairs on a shared queue of capacity " + capacity + " (million pairs per second, latency in ns)");
+		for(int threads=1;threads<=64;threads*=4){
+			MPMCQueue<Integer> lockFree = new MPMCQueue<Integer>(capacity);
+			pairs("MPMCQueue          ", threads, n, lockFree::offer, lockFree::poll);
+
+			AQueue<Integer> locked = new AQueue<Integer>(capacity, AQueue.Overflow.REJECT);
+			pairs("synchronized AQueue", threads, n, e -> {
+				synchronized(locked){
+					return locked.offer(e);
+				}
+			}, () -> {
+				synchronized(locked){
+					return locked.dequeue();
+				}
+			});
+		}
+	}
+
+	//Runs n enqueue/dequeue pairs split over the given number of threads and prints the throughput and latency.
+	private static void pairs(String name, int threads, int n, Predicate<Integer> offer, Supplier<Integer> poll){
+		int each = n / threads;
+		int sampled = each / 16;
+		long[][] latencies = new long[threads][sampled];
+		AtomicInteger ids = new AtomicInteger();
+		Integer element = 12345;
+		long time = runThreads(threads, () -> {
+			long[] mine = latencies[ids.getAndIncrement()];
+			for(int k=0;k<each;k++){
+				long start = (k & 15) == 0 ? System.nanoTime() : 0;
+				while(!offer.test(element)){
+					Thread.yield(); //lets the other threads run if there are more of them than cores
+				}
+				while(poll.get() == null){
+					Thread.yield();
+				}
+				if((k & 15) == 0 && k/16 < sampled){
+					mine[k/16] = System.nanoTime() - start;
+				}
+			}
+		});
+		long[] all = new long[threads * sampled];
+		for(int t=0;t<threads;t++){
+			System.arraycopy(latencies[t], 0, all, t * sampled, sampled);
+		}
+		Arrays.sort(all);
+		System.out.printf("  %2d threads  %s %7.1f   p50 %6d  p99 %8d  p99.9 %9d%n", threads, name, each * (double) threads / time * 1e3,
+				percentile(all, 0.50), percentile(all, 0.99), percentile(all, 0.999));
+	}
+
+	//Returns the value below which the given fraction of the sorted samples fall.
+	private static long percentile(long[] sorted, double fraction){
+		if(sorted.length == 0){
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+	}
+
+	/**
+	 * Stress tests LFQueue and then measures it against an LQueue guarded by synchronized.
+	 * The stress test runs 4 producers and 4 consumers and checks that every element comes out exactly once, and
+	 * that each consumer sees every producer's elements in the order they were enqueued. The contention part runs
+	 * enqueue/dequeue pairs on 1, 4, 16 and 64 threads like the mpmc benchmark.
+	 * @param n the number of elements in the stress test, and of pairs per contention run.
+	 */
+	public static void lfqueue(int n){
+		int producers = 4;
+		int each = n / producers;
+		LFQueue<Integer> queue = new LFQueue<Integer>();
+		AtomicInteger[] seen = new AtomicInteger[producers * each];
+		for(int k=0;k<seen.length;k++){
+			seen[k] = new AtomicInteger();
+		}
+		AtomicInteger received = new AtomicInteger();
+		AtomicInteger ids = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+		runThreads(2 * producers, () -> {
+			int id = ids.getAndIncrement();
+			if(id < producers){
+				for(int k=0;k<each;k++){
+					queue.enqueue(id * each + k);
+				}
+				return;
+			}
+			int[] last = new int[producers]; //last value this consumer got from each producer
+			Arrays.fill(last, -1);
+			while(received.get() < producers * each){
+				Integer e = queue.dequeue();
+				if(e == null){
+					Thread.yield();
+					continue;
+				}
+				received.incrementAndGet();
+				if(seen[e].incrementAndGet() != 1 || e <= last[e / each]){
+					errors.incrementAndGet();
+				}
+				last[e / each] = e;
+			}
+		});
+		for(AtomicInteger count:seen){
+			if(count.get() != 1){
+				errors.incrementAndGet();
+			}
+		}
+		System.out.println("Stress test with " + producers + " producers and " + producers + " consumers: "
+				+ (errors.get() == 0 && queue.isEmpty() ? "passed" : errors.get() + " errors"));
+
+		System.out.println("Enqueue/dequeue pairs on a shared unbounded queue (million pairs per second, latency in ns)");
+		for(int threads=1;threads<=64;threads*=4){
+			LFQueue<Integer> lockFree = new LFQueue<Integer>();
+			pairs("LFQueue            ", threads, n, lockFree::offer, lockFree::poll);
+
+			LQueue<Integer> locked = new LQueue<Integer>();
+			pairs("synchronized LQueue", threads, n, e -> {
+				synchronized(locked){
+					locked.enqueue(e);
+					return true;
+				}
+			}, () -> {
+				synchronized(locked){
+					return locked.dequeue();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Moves messages through AQueue and LQueue in batches of 256, once with one enqueue and dequeue per element and
+	 * once with enqueueAll and drainTo.
+	 * @param n the total number of messages per run.
+	 */
+	public static void batch(int n){
+		int batchSize = 256;
+		Integer[] batch = new Integer[batchSize];
+		Arrays.fill(batch, 12345);
+		Integer[] out = new Integer[batchSize];
+		System.out.println("Moving " + n + " messages in batches of " + batchSize + " (ns per message, best of 5)");
+		@SuppressWarnings("unchecked")
+		Queue<Integer>[] queues = (Queue<Integer>[]) new Queue<?>[]{ new AQueue<Integer>(4 * batchSize), new LQueue<Integer>() };
+		String[] names = { "AQueue", "LQueue" };
+		for(int q=0;q<queues.length;q++){
+			Queue<Integer> queue = queues[q];
+			long single = Long.MAX_VALUE;
+			long batched = Long.MAX_VALUE;
+			for(int run=0;run<5;run++){
+				long start = System.nanoTime();
+				for(int done=0;done<n;done+=batchSize){
+					for(int k=0;k<batchSize;k++){
+						queue.enqueue(batch[k]);
+					}
+					for(int k=0;k<batchSize;k++){
+						out[k] = queue.dequeue();
+					}
+				}
+				single = Math.min(single, System.nanoTime() - start);
+
+				start = System.nanoTime();
+				for(int done=0;done<n;done+=batchSize){
+					queue.enqueueAll(batch);
+					queue.drainTo(out, 0, batchSize);
+				}
+				batched = Math.min(batched, System.nanoTime() - start);
+			}
+			System.out.printf("  %s  one at a time %6.2f   enqueueAll/drainTo %6.2f%n", names[q], single / (double) n, batched / (double) n);
+		}
+	}
+
+	/**
+	 * Compares ChunkedQueue against LQueue and a growing AQueue. Each run fills the queue with n elements and empties
+	 * it again, ten times over, and reports the bytes allocated and the time per element. The first round, where
+	 * every queue still has to build up its storage, is reported separately from the steady state.
+	 * @param n the number of elements the queue holds at its largest.
+	 */
+	public static void chunked(int n){
+		System.out.println("Filling and emptying a queue of " + n + " elements (bytes allocated and ns per element)");
+		Integer element = 12345;
+		@SuppressWarnings("unchecked")
+		Queue<Integer>[] queues = (Queue<Integer>[]) new Queue<?>[]{ new LQueue<Integer>(), new ChunkedQueue<Integer>(), new AQueue<Integer>(16, AQueue.Overflow.GROW) };
+		String[] names = { "LQueue      ", "ChunkedQueue", "AQueue GROW " };
+		for(int q=0;q<queues.length;q++){
+			Queue<Integer> queue = queues[q];
+			long first = 0;
+			long allocated = 0;
+			long best = Long.MAX_VALUE;
+			for(int round=0;round<11;round++){
+				long bytes = allocatedBytes();
+				long start = System.nanoTime();
+				for(int k=0;k<n;k++){
+					queue.enqueue(element);
+				}
+				while(queue.dequeue() != null){
+				}
+				long time = System.nanoTime() - start;
+				bytes = allocatedBytes() - bytes;
+				if(round == 0){
+					first = bytes;
+				}
+				else{
+					allocated += bytes;
+					best = Math.min(best, time);
+				}
+			}
+			System.out.printf("  %s  first round %6.2f bytes   steady state %6.2f bytes  %6.2f ns%n", names[q],
+					first / (double) n, allocated / 10.0 / n, best / (double) n);
+		}
+	}
+
+	/**
+	 * Compares AQueue<Integer> and AQueue<Long> against IntRingQueue and LongRingQueue: the heap used by a full queue,
+	 * and the bytes allocated and time taken by enqueue/dequeue pairs on it.
+	 * Values are chosen above the Integer/Long cache range so that every boxed enqueue allocates a new wrapper.
+	 * @param n the number of values in each queue.
+	 */
+	public static void ringqueue(int n){
+		System.out.println("Queues of " + n + " values (bytes per value, and bytes allocated and ns per enqueue/dequeue pair)");
+		for(int kind=0;kind<4;kind++){
+			AQueue<Integer> boxedInts = null;
+			AQueue<Long> boxedLongs = null;
+			IntRingQueue ints = null;
+			LongRingQueue longs = null;
+			long before = usedHeap();
+			switch(kind){
+				case 0:
+					boxedInts = new AQueue<Integer>(n, AQueue.Overflow.GROW);
+					for(int k=0;k<n;k++){
+						boxedInts.enqueue(1000 + k);
+					}
+					break;
+				case 1:
+					ints = new IntRingQueue(n, AQueue.Overflow.GROW);
+					for(int k=0;k<n;k++){
+						ints.enqueueInt(1000 + k);
+					}
+					break;
+				case 2:
+					boxedLongs = new AQueue<Long>(n, AQueue.Overflow.GROW);
+					for(int k=0;k<n;k++){
+						boxedLongs.enqueue(1000L + k);
+					}
+					break;
+				default:
+					longs = new LongRingQueue(n, AQueue.Overflow.GROW);
+					for(int k=0;k<n;k++){
+						longs.enqueueLong(1000L + k);
+					}
+			}
+			double footprint = (usedHeap() - before) / (double) n;
+
+			long sum = 0;
+			long allocated = allocatedBytes();
+			long start = System.nanoTime();
+			switch(kind){
+				case 0:
+					for(int k=0;k<n;k++){
+						sum += boxedInts.dequeue();
+						boxedInts.enqueue(1000 + k);
+					}
+					break;
+				case 1:
+					for(int k=0;k<n;k++){
+						sum += ints.dequeueInt();
+						ints.enqueueInt(1000 + k);
+					}
+					break;
+				case 2:
+					for(int k=0;k<n;k++){
+						sum += boxedLongs.dequeue();
+						boxedLongs.enqueue(1000L + k);
+					}
+					break;
+				default:
+					for(int k=0;k<n;k++){
+						sum += longs.dequeueLong();
+						longs.enqueueLong(1000L + k);
+					}
+			}
+			long time = System.nanoTime() - start;
+			allocated = allocatedBytes() - allocated;
+			String name = new String[]{ "AQueue<Integer>", "IntRingQueue   ", "AQueue<Long>   ", "LongRingQueue  " }[kind];
+			System.out.printf("  %s  footprint %6.2f   allocated %6.2f  time %6.2f  (%d)%n", name, footprint,
+					allocated / (double) n, time / (double) n, sum % 10);
+		}
+	}
+
+	/**
+	 * Measures MappedQueue in a temporary directory: enqueueing n short strings, one sync, reopening the queue (which
+	 * scans the records after the checkpoint), and dequeuing them all. The same enqueues and dequeues on an in-memory
+	 * AQueue are timed for comparison. It first checks that a failed write leaves nothing behind that a later,
+	 * shorter record could expose as a header.
+	 * @param n the number of strings.
+	 */
+	public static void mapped(int n){
+		System.out.println("Torn record check: " + (tornRecordSurvives() ? "ok" : "FAILED"));
+		String element = "message-0123456789-0123456789-0123456789";
+		System.out.println("Queueing " + n + " strings of " + element.length() + " characters (ns per element)");
+		Path directory = null;
+		try{
+			directory = Files.createTempDirectory("mappedqueue");
+			MappedQueue<String> queue = new MappedQueue<String>(directory, MappedQueue.Serializer.UTF8);
+			long start = System.nanoTime();
+			for(int k=0;k<n;k++){
+				queue.enqueue(element);
+			}
+			long enqueueTime = System.nanoTime() - start;
+			start = System.nanoTime();
+			queue.sync();
+			long syncTime = System.nanoTime() - start;
+			queue.close();
+
+			start = System.nanoTime();
+			queue = new MappedQueue<String>(directory, MappedQueue.Serializer.UTF8);
+			long openTime = System.nanoTime() - start;
+			int recovered = queue.size();
+			start = System.nanoTime();
+			while(queue.dequeue() != null){
+			}
+			long dequeueTime = System.nanoTime() - start;
+			queue.close();
+			System.out.printf("  MappedQueue  enqueue %6.1f  dequeue %6.1f   sync %.1f ms  reopen %.1f ms (%d elements recovered)%n",
+					enqueueTime / (double) n, dequeueTime / (double) n, syncTime / 1e6, openTime / 1e6, recovered);
+		}
+		catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+		finally{
+			deleteDirectory(directory);
+		}
+
+		AQueue<String> memory = new AQueue<String>(16, AQueue.Overflow.GROW);
+		long start = System.nanoTime();
+		for(int k=0;k<n;k++){
+			memory.enqueue(element);
+		}
+		long enqueueTime = System.nanoTime() - start;
+		start = System.nanoTime();
+		while(memory.dequeue() != null){
+		}
+		long dequeueTime = System.nanoTime() - start;
+		System.out.printf("  AQueue       enqueue %6.1f  dequeue %6.1f%n", enqueueTime / (double) n, dequeueTime / (double) n);
+	}
+
+	//Makes a serializer write 12 bytes of a record and then throw, enqueues a 2-byte record over them and a 56-byte
+	//record that has to start a new 64-byte segment, and checks that both come back, before and after reopening.
+	private static boolean tornRecordSurvives(){
+		MappedQueue.Serializer<byte[]> serializer = new MappedQueue.Serializer<byte[]>(){
+			public int sizeOf(byte[] e){
+				return e.length;
+			}
+
+			public void write(byte[] e, ByteBuffer out){
+				out.put(e);
+				if(e.length == 12){
+					throw new IllegalStateException("Simulated failure");
+				}
+			}
+
+			public byte[] read(ByteBuffer in){
+				byte[] bytes = new byte[in.remaining()];
+				in.get(bytes);
+				return bytes;
+			}
+		};
+		byte[] failing = new byte[12];
+		Arrays.fill(failing, (byte) 'x');
+		Path directory = null;
+		try{
+			directory = Files.createTempDirectory("mappedqueue");
+			MappedQueue<byte[]> queue = new MappedQueue<byte[]>(directory, 64, serializer);
+			try{
+				queue.enqueue(failing);
+			}
+			catch(IllegalStateException expected){
+			}
+			queue.enqueue(new byte[2]);
+			queue.enqueue(new byte[56]);
+			queue.close();
+			queue = new MappedQueue<byte[]>(directory, 64, serializer);
+			boolean ok = queue.size() == 2 && queue.dequeue().length == 2 && queue.dequeue().length == 56
+					&& queue.dequeue() == null;
+			queue.close();
+			return ok;
+		}
+		catch(IOException | RuntimeException e){
+			return false;
+		}
+		finally{
+			deleteDirectory(directory);
+		}
+	}
+
+	//Deletes a directory and the files in it, ignoring errors.
+	private static void deleteDirectory(Path directory){
+		if(directory == null){
+			return;
+		}
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory)){
+			for(Path file:files){
+				Files.deleteIfExists(file);
+			}
+			Files.deleteIfExists(directory);
+		}
+		catch(IOException e){
+			System.out.println("Could not delete " + directory);
+		}
+	}
+
+	//Computes Fibonacci numbers by forking one branch and computing the other, down to a sequential cutoff.
+	private static class FibTask extends WorkStealingPool.Task<Long>{
+		private final int n;
+
+		public FibTask(int n){
+			this.n = n;
+		}
+
+		protected Long compute(){
+			if(n < 20){
+				return fibonacci(n);
+			}
+			FibTask left = new FibTask(n - 1);
+			left.fork();
+			long right = new FibTask(n - 2).compute();
+			return left.join() + right;
+		}
+	}
+
+	//The same computation as FibTask, on a ForkJoinPool.
+	@SuppressWarnings("serial")
+	private static class ForkJoinFib extends RecursiveTask<Long>{
+		private final int n;
+
+		public ForkJoinFib(int n){
+			this.n = n;
+		}
+
+		protected Long compute(){
+			if(n < 20){
+				return fibonacci(n);
+			}
+			ForkJoinFib left = new ForkJoinFib(n - 1);
+			left.fork();
+			long right = new ForkJoinFib(n - 2).compute();
+			return left.join() + right;
+		}
+	}
+
+	private static long fibonacci(int n){
+		return (n < 2) ? n : fibonacci(n - 1) + fibonacci(n - 2);
+	}
+
+	/**
+	 * Computes fibonacci(n) with recursive fork/join tasks on WorkStealingPool and, for reference, on ForkJoinPool,
+	 * with 1, 2, 4, ... workers up to the number of cores (at least 4), and reports the speedup over one worker.
+	 * @param n the Fibonacci number to compute.
+	 */
+	public static void steal(int n){
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.println("Fork/join fibonacci(" + n + ") on " + cores + " cores (ms, best of 3)");
+		double single = 0;
+		double singleForkJoin = 0;
+		for(int p=1;p<=Math.max(4, cores);p*=2){
+			long best = Long.MAX_VALUE;
+			long result = 0;
+			try(WorkStealingPool pool = new WorkStealingPool(p)){
+				for(int run=0;run<4;run++){ //the first run warms up
+					long start = System.nanoTime();
+					result = pool.invoke(new FibTask(n));
+					if(run > 0){
+						best = Math.min(best, System.nanoTime() - start);
+					}
+				}
+			}
+			long bestForkJoin = Long.MAX_VALUE;
+			ForkJoinPool forkJoin = new ForkJoinPool(p);
+			for(int run=0;run<4;run++){
+				long start = System.nanoTime();
+				forkJoin.invoke(new ForkJoinFib(n));
+				if(run > 0){
+					bestForkJoin = Math.min(bestForkJoin, System.nanoTime() - start);
+				}
+			}
+			forkJoin.shutdown();
+			if(p == 1){
+				single = best;
+				singleForkJoin = bestForkJoin;
+			}
+			System.out.printf("  %2d workers  WorkStealingPool %8.1f (%.2fx)   ForkJoinPool %8.1f (%.2fx)  (%d)%n", p, best / 1e6,
+					single / best, bestForkJoin / 1e6, singleForkJoin / bestForkJoin, result % 10);
+		}
+	}
+
+	//Small fixed-shape record used by the offheap benchmark.
+	private static class Point{
+		private final int id;
+		private final double x;
+		private final double y;
+
+		public Point(int id, double x, double y){
+			this.id = id;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	//Stores a Point as 20 bytes: id at offset 0, x at 4 and y at 12.
+	private static final OffHeapList.RecordCodec<Point> POINT_CODEC = new OffHeapList.RecordCodec<Point>(){
+		public int width(){
+			return 20;
+		}
+
+		public void encode(Point p, ByteBuffer buffer, int offset){
+			buffer.putInt(offset, p.id);
+			buffer.putDouble(offset + 4, p.x);
+			buffer.putDouble(offset + 12, p.y);
+		}
+
+		public Point decode(ByteBuffer buffer, int offset){
+			return new Point(buffer.getInt(offset), buffer.getDouble(offset + 4), buffer.getDouble(offset + 12));
+		}
+	};
+
+	/**
+	 * Compares an AArrayList of small records against an OffHeapList of the same records: the heap they use, how
+	 * long a full garbage collection takes while they are alive, and a scan summing one field (with get on both
+	 * lists, and with a Record cursor on the OffHeapList).
+	 * @param n the number of records.
+	 */
+	public static void offheap(int n){
+		System.out.println(n + " records of 3 fields (heap in MB, full GC in ms, scan in ns per record)");
+		long base = usedHeap();
+		long start = System.nanoTime();
+		usedHeap();
+		long baseGc = System.nanoTime() - start;
+		System.out.printf("  empty heap                  GC %6.1f%n", baseGc / 1e6 / 4);
+
+		AArrayList<Point> onHeap = new AArrayList<Point>(n);
+		for(int k=0;k<n;k++){
+			onHeap.add(k, new Point(k, k * 0.5, k * 0.25));
+		}
+		long heap = usedHeap() - base;
+		start = System.nanoTime();
+		usedHeap();
+		long gc = System.nanoTime() - start;
+		double sum = 0;
+		long scan = Long.MAX_VALUE;
+		for(int run=0;run<5;run++){
+			long t = System.nanoTime();
+			for(int k=0;k<n;k++){
+				sum += onHeap.get(k).x;
+			}
+			scan = Math.min(scan, System.nanoTime() - t);
+		}
+		System.out.printf("  AArrayList<Point>  heap %6.1f  GC %6.1f  get %5.2f  (%.0f)%n", heap / 1e6, gc / 1e6 / 4, scan / (double) n, sum % 10);
+		onHeap = null;
+
+		base = usedHeap();
+		OffHeapList<Point> offHeap = new OffHeapList<Point>(POINT_CODEC);
+		for(int k=0;k<n;k++){
+			offHeap.add(new Point(k, k * 0.5, k * 0.25));
+		}
+		heap = usedHeap() - base;
+		start = System.nanoTime();
+		usedHeap();
+		gc = System.nanoTime() - start;
+		long scanGet = Long.MAX_VALUE;
+		scan = Long.MAX_VALUE;
+		OffHeapList<Point>.Record record = offHeap.record();
+		for(int run=0;run<5;run++){
+			long t = System.nanoTime();
+			for(int k=0;k<n;k++){
+				sum += offHeap.get(k).x;
+			}
+			scanGet = Math.min(scanGet, System.nanoTime() - t);
+			t = System.nanoTime();
+			for(int k=0;k<n;k++){
+				sum += record.moveTo(k).getDouble(4);
+			}
+			scan = Math.min(scan, System.nanoTime() - t);
+		}
+		System.out.printf("  OffHeapList<Point> heap %6.1f  GC %6.1f  get %5.2f  cursor %5.2f  (%.0f)%n", heap / 1e6, gc / 1e6 / 4,
+				scanGet / (double) n, scan / (double) n, sum % 10);
+	}
+
+	/**
+	 * Computes the rolling min, max and sum over the last w values of a random stream, for growing windows w: once by
+	 * rescanning an AQueue holding the window after every value, and once with a WindowedQueue.
+	 * @param n the number of values in the stream.
+	 */
+	public static void window(int n){
+		System.out.println(n + " values (ns per value)");
+		double[] values = new Random(42).doubles(n).toArray();
+		for(int w=10;w<=10000;w*=10){
+			double check = 0;
+			long rescan = Long.MAX_VALUE;
+			long windowed = Long.MAX_VALUE;
+			for(int run=0;run<3;run++){
+				long t = System.nanoTime();
+				AQueue<Double> queue = new AQueue<Double>(w, AQueue.Overflow.OVERWRITE);
+				for(int k=0;k<n;k++){
+					queue.enqueue(values[k]);
+					double min = Double.POSITIVE_INFINITY;
+					double max = Double.NEGATIVE_INFINITY;
+					double sum = 0;
+					for(double v:queue){
+						min = Math.min(min, v);
+						max = Math.max(max, v);
+						sum += v;
+					}
+					check += min + max + sum;
+				}
+				rescan = Math.min(rescan, System.nanoTime() - t);
+
+				t = System.nanoTime();
+				WindowedQueue window = new WindowedQueue(w);
+				for(int k=0;k<n;k++){
+					window.enqueueDouble(values[k]);
+					check -= window.min() + window.max() + window.sum();
+				}
+				windowed = Math.min(windowed, System.nanoTime() - t);
+			}
+			System.out.printf("  window %6d  rescan %10.1f  WindowedQueue %6.1f  (%.0f)%n", w, rescan / (double) n,
+					windowed / (double) n, Math.abs(check));
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Array based list with long indices. Instead of one backing array it keeps a directory of fixed size segments,
+ * so it can hold more than Integer.MAX_VALUE elements. Only the last segment ever grows, so growing the list never
+ * copies more than one segment (plus the directory, which only holds one reference per segment).
+ */
+public class BigArrayList<E> implements BigList<E> {
+	public static final int SEGMENT_SHIFT=20; //each segment holds 2^20 elements
+	public static final int SEGMENT_SIZE=1 << SEGMENT_SHIFT;
+	private static final int MASK=SEGMENT_SIZE-1;
+	private static final int MIN_SEGMENT_LENGTH=16;
+	private Object[][] segments = new Object[1][];
+	private int segmentCount=0; //number of segments allocated so far
+	private long size=0;
+
+	//Constructor
+	public BigArrayList(){}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public long size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Appends an element e to the end of the list.
+	 * @param e the element being added.
+	 */
+	public void add(E e){
+		ensureCapacity(size+1);
+		segments[(int) (size >>> SEGMENT_SHIFT)][(int) size & MASK] = e;
+		size++;
+		//Runs in O(1) amortized time. The copies made when the last segment doubles are bounded by SEGMENT_SIZE.
+	}
+
+	/**
+	 * Inserts an element e to be at index I, shifting all elements after this. Each segment after i is shifted
+	 * with one block copy, and its last element is carried into the first slot of the next segment.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(long i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		ensureCapacity(size+1);
+		int first = (int) (i >>> SEGMENT_SHIFT);
+		int last = (int) (size >>> SEGMENT_SHIFT); //segment that receives the new last element
+		for(int s=last;s>first;s--){
+			int end = (s == last) ? (int) size & MASK : MASK; //last occupied slot once the shift is done
+			System.arraycopy(segments[s], 0, segments[s], 1, end);
+			segments[s][0] = segments[s-1][MASK];
+		}
+		int off = (int) i & MASK;
+		int end = (first == last) ? (int) size & MASK : MASK;
+		System.arraycopy(segments[first], off, segments[first], off+1, end-off);
+		segments[first][off] = e;
+		size++;
+		//Runs in O(n-i) time, the same as AArrayList, but done with one block copy per segment.
+	}
+
+	/**
+	 * Returns the element at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(long i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		return (E) segments[(int) (i >>> SEGMENT_SHIFT)][(int) i & MASK];
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Removes and returns the element at index I, shifting the elements after this.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E remove(long i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int first = (int) (i >>> SEGMENT_SHIFT);
+		int last = (int) ((size-1) >>> SEGMENT_SHIFT);
+		int off = (int) i & MASK;
+		E temp = (E) segments[first][off];
+		int end = (first == last) ? (int) (size-1) & MASK : MASK;
+		System.arraycopy(segments[first], off+1, segments[first], off, end-off);
+		for(int s=first+1;s<=last;s++){
+			segments[s-1][MASK] = segments[s][0]; //the first element of segment s moves back into segment s-1
+			end = (s == last) ? (int) (size-1) & MASK : MASK;
+			System.arraycopy(segments[s], 1, segments[s], 0, end);
+		}
+		segments[last][(int) (size-1) & MASK] = null;
+		size--;
+		return temp;
+		//Runs in O(n-i) time.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E set(long i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		Object[] segment = segments[(int) (i >>> SEGMENT_SHIFT)];
+		E temp = (E) segment[(int) i & MASK];
+		segment[(int) i & MASK] = e;
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Performs the given action on every element, in order. The segments are walked one at a time, so there is
+	 * no index check or segment lookup per element.
+	 * @param action the action to perform.
+	 */
+	public void forEach(Consumer<? super E> action){
+		forEach(0, size, action);
+		//Runs in O(n) time.
+	}
+
+	/**
+	 * Returns a spliterator over the elements. It walks the segments the same way forEach does and can be split
+	 * for parallel streams.
+	 * @return a spliterator over the elements in order.
+	 */
+	public Spliterator<E> spliterator(){
+		return new SegmentSpliterator(0, size);
+	}
+
+	/**
+	 * Makes sure the list can hold at least the given number of elements. Missing segments are added to the
+	 * directory and the last segment is grown; the segments before it are never copied.
+	 * @param capacity the minimum capacity needed.
+	 */
+	public void ensureCapacity(long capacity){
+		int needed = (int) ((capacity + MASK) >>> SEGMENT_SHIFT);
+		if(needed > segments.length){
+			segments = Arrays.copyOf(segments, Math.max(needed, 2*segments.length)); //only copies references
+		}
+		for(int s=Math.max(0, segmentCount-1);s<needed;s++){ //only the last allocated segment can be partial
+			int length = (s < needed-1) ? SEGMENT_SIZE : (int) Math.min(SEGMENT_SIZE, capacity - ((long) s << SEGMENT_SHIFT));
+			if(segments[s] == null){
+				segments[s] = new Object[Math.max(MIN_SEGMENT_LENGTH, length)];
+			}
+			else if(segments[s].length < length){
+				segments[s] = Arrays.copyOf(segments[s], (int) Math.min(SEGMENT_SIZE, Math.max(length, 2L*segments[s].length)));
+			}
+		}
+		segmentCount = Math.max(segmentCount, needed);
+		//Runs in O(SEGMENT_SIZE) time at worst, since at most one allocated segment is copied.
+	}
+
+	//Calls action on the elements from index FROM (inclusive) to index TO (exclusive), one segment at a time.
+	@SuppressWarnings("unchecked")
+	private void forEach(long from, long to, Consumer<? super E> action){
+		while(from < to){
+			Object[] segment = segments[(int) (from >>> SEGMENT_SHIFT)];
+			int start = (int) from & MASK;
+			int end = (int) Math.min(SEGMENT_SIZE, start + (to - from));
+			for(int k=start;k<end;k++){
+				action.accept((E) segment[k]);
+			}
+			from += end - start;
+		}
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(long i, long n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		forEach(e -> str.append(e + " "));
+		str.append("}");
+		return str.toString();
+	}
+
+	//Spliterator over the index range [index, fence). Splitting halves the range.
+	private class SegmentSpliterator implements Spliterator<E> {
+		private long index;
+		private final long fence;
+
+		SegmentSpliterator(long from, long to){
+			index = from;
+			fence = to;
+		}
+
+		@SuppressWarnings("unchecked")
+		public boolean tryAdvance(Consumer<? super E> action){
+			if(index >= fence){
+				return false;
+			}
+			action.accept((E) segments[(int) (index >>> SEGMENT_SHIFT)][(int) index & MASK]);
+			index++;
+			return true;
+		}
+
+		public void forEachRemaining(Consumer<? super E> action){
+			long from = index;
+			index = fence;
+			forEach(from, fence, action);
+		}
+
+		public Spliterator<E> trySplit(){
+			long mid = (index + fence) >>> 1;
+			if(mid <= index){
+				return null;
+			}
+			Spliterator<E> prefix = new SegmentSpliterator(index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		public long estimateSize(){
+			return fence - index;
+		}
+
+		public int characteristics(){
+			return ORDERED | SIZED | SUBSIZED;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package eecs2011;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A list indexed by long instead of int, for collections with more than Integer.MAX_VALUE elements.
+ * Apart from the index type it follows the same contract as List.
+ */
+public interface BigList<E> {
+	/** Returns the number of elements in this list */
+	public long size();
+	
+	/** Returns whether the list is empty. */
+	public boolean isEmpty();
+	
+	/** Appends an element e to the end of the list. */
+	public void add(E e);
+	
+	/** Inserts an element e to be at index I, shifting all elements after this. */
+	public void add(long i, E e) throws IndexOutOfBoundsException;
+	
+	/** Returns the element at index I, without removing it. */
+	public E get(long i) throws IndexOutOfBoundsException;
+	
+	/** Removes and returns the element at index I, shifting the elements after this. */
+	public E remove(long i) throws IndexOutOfBoundsException;
+	
+	/** Replaces the element at index I with e, returning the previous element at i. */
+	public E set(long i, E e) throws IndexOutOfBoundsException;
+	
+	/** Performs the given action on every element, in order. */
+	public void forEach(Consumer<? super E> action);
+	
+	/** Returns a spliterator over the elements, in order. */
+	public Spliterator<E> spliterator();
+	
+	/** Returns a sequential stream over the elements, in order. */
+	public default Stream<E> stream(){
+		return StreamSupport.stream(spliterator(), false);
+	}
+}
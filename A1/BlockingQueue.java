@@ -0,0 +1,446 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Thread safe bounded queue that makes consumers wait for elements and applies backpressure to producers, layered
+ * on one of the single threaded queues (an AQueue by default, or an LQueue). Every operation holds one lock; take
+ * waits on a notEmpty condition instead of spinning on dequeue returning null, and when the queue is full the
+ * policy decides whether put waits on a notFull condition, drops the new element, or drops the oldest one.
+ * Waiting uses ReentrantLock and Condition rather than synchronized and wait(), so a virtual thread that blocks
+ * here is unmounted and does not pin its carrier thread.
+ * Null elements are not allowed, since poll returns null for an empty queue.
+ */
+public class BlockingQueue<E> implements Queue<E> {
+	public static final int DEFAULT_CAPACITY=1024;
+
+	/** What put and enqueue do when the queue already holds capacity elements. */
+	public enum Backpressure{
+		/** Wait until a consumer makes room. */
+		BLOCK,
+		/** Drop the new element. */
+		DROP_NEWEST,
+		/** Drop the oldest element to make room for the new one. */
+		DROP_OLDEST
+	}
+
+	private final Queue<E> queue; //only accessed while holding lock
+	private final int capacity;
+	private final Backpressure policy;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition(); //signalled when an element is added
+	private final Condition notFull = lock.newCondition(); //signalled when an element is removed
+	private long dropped = 0; //number of elements discarded by the policy
+
+	//Constructors
+	public BlockingQueue(){
+		this(DEFAULT_CAPACITY, Backpressure.BLOCK);
+	}
+
+	/**
+	 * Creates a queue backed by an AQueue of the given capacity.
+	 * @param capacity the most elements the queue holds.
+	 * @param policy what to do when an element is added while the queue is full.
+	 */
+	public BlockingQueue(int capacity, Backpressure policy){
+		this(new AQueue<E>(capacity), capacity, policy);
+	}
+
+	/**
+	 * Creates a queue on top of the given queue, e.g. an LQueue when the elements should not be held in one array.
+	 * The queue must be empty, able to hold capacity elements, and must not be used directly afterwards.
+	 * @param queue the queue that stores the elements.
+	 * @param capacity the most elements the queue holds.
+	 * @param policy what to do when an element is added while the queue is full.
+	 */
+	public BlockingQueue(Queue<E> queue, int capacity, Backpressure policy){
+		if(capacity < 1){
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		if(!queue.isEmpty()){
+			throw new IllegalArgumentException("The queue must be empty");
+		}
+		this.queue = queue;
+		this.capacity = capacity;
+		this.policy = policy;
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the queue.
+	 * @return an integer value which corresponds to the size of the queue.
+	 */
+	public int size(){
+		lock.lock();
+		try{
+			return queue.size();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return size() == 0;
+	}
+
+	/**
+	 * Returns, but does not remove, the first element of the queue (null if empty).
+	 * @return first element
+	 */
+	public E front(){
+		lock.lock();
+		try{
+			return queue.front();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue, applying the policy if it is full. Under BLOCK this waits for
+	 * room without responding to interrupts; use put to be able to interrupt the wait.
+	 * @param e the object to be inserted in the back.
+	 * @throws NullPointerException if e is null.
+	 */
+	public void enqueue(E e){
+		checkElement(e);
+		lock.lock();
+		try{
+			while(policy == Backpressure.BLOCK && queue.size() == capacity){
+				notFull.awaitUninterruptibly();
+			}
+			insert(e);
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue, applying the policy if it is full. Under BLOCK this waits until
+	 * a consumer makes room.
+	 * @param e the object to be inserted in the back.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 * @throws NullPointerException if e is null.
+	 */
+	public void put(E e) throws InterruptedException{
+		checkElement(e);
+		lock.lockInterruptibly();
+		try{
+			while(policy == Backpressure.BLOCK && queue.size() == capacity){
+				notFull.await();
+			}
+			insert(e);
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue without waiting. If the queue is full, BLOCK and DROP_NEWEST
+	 * reject e, and DROP_OLDEST drops the front element to make room.
+	 * @param e the object to be inserted in the back.
+	 * @return true if e was added.
+	 * @throws NullPointerException if e is null.
+	 */
+	public boolean offer(E e){
+		checkElement(e);
+		lock.lock();
+		try{
+			if(policy == Backpressure.BLOCK && queue.size() == capacity){
+				return false;
+			}
+			return insert(e);
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue, waiting up to the given time for room under BLOCK. The other
+	 * policies never wait and behave like offer(e).
+	 * @param e the object to be inserted in the back.
+	 * @param timeout how long to wait.
+	 * @param unit the unit of timeout.
+	 * @return true if e was added, false if the time ran out (or DROP_NEWEST dropped it).
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 * @throws NullPointerException if e is null.
+	 */
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException{
+		checkElement(e);
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try{
+			while(policy == Backpressure.BLOCK && queue.size() == capacity){
+				if(nanos <= 0){
+					return false;
+				}
+				nanos = notFull.awaitNanos(nanos);
+			}
+			return insert(e);
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty) without waiting.
+	 * @return the first element of the queue
+	 */
+	public E dequeue(){
+		return poll();
+	}
+
+	/**
+	 * Removes and returns the first element of the queue without waiting.
+	 * @return the first element of the queue, or null if it is empty.
+	 */
+	public E poll(){
+		lock.lock();
+		try{
+			return queue.isEmpty() ? null : extract();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes and returns the first element of the queue, waiting up to the given time for one to arrive.
+	 * @param timeout how long to wait.
+	 * @param unit the unit of timeout.
+	 * @return the first element of the queue, or null if the time ran out.
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException{
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try{
+			while(queue.isEmpty()){
+				if(nanos <= 0){
+					return null;
+				}
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return extract();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes and returns the first element of the queue, waiting until there is one.
+	 * @return the first element of the queue
+	 * @throws InterruptedException if the thread is interrupted while waiting.
+	 */
+	public E take() throws InterruptedException{
+		lock.lockInterruptibly();
+		try{
+			while(queue.isEmpty()){
+				notEmpty.await();
+			}
+			return extract();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Inserts the elements of the array at the rear of the queue, in order, taking the lock once for the whole batch.
+	 * Under BLOCK this waits for room whenever the queue fills up, without responding to interrupts.
+	 * @param elements the objects to be inserted in the back.
+	 * @throws NullPointerException if any element is null; the elements before it have been added.
+	 */
+	public void enqueueAll(E[] elements){
+		insertAll(Arrays.asList(elements));
+	}
+	
+	/**
+	 * Inserts the elements of the list at the rear of the queue, in order, taking the lock once for the whole batch.
+	 * Under BLOCK this waits for room whenever the queue fills up, without responding to interrupts.
+	 * @param elements the objects to be inserted in the back.
+	 * @throws NullPointerException if any element is null; the elements before it have been added.
+	 */
+	public void enqueueAll(List<? extends E> elements){
+		insertAll(elements);
+	}
+	
+	/**
+	 * Removes up to maxElements elements without waiting and passes them to the consumer in order. The elements are
+	 * taken out under the lock in one batch, and the consumer runs after the lock is released.
+	 * @param consumer receives the removed elements.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 */
+	public int drainTo(Consumer<? super E> consumer, int maxElements){
+		E[] batch;
+		int count;
+		lock.lock();
+		try{
+			@SuppressWarnings("unchecked")
+			E[] temp = (E[]) new Object[Math.max(0, Math.min(maxElements, queue.size()))];
+			batch = temp;
+			count = drain(batch, 0, batch.length);
+		}
+		finally{
+			lock.unlock();
+		}
+		for(int k=0;k<count;k++){
+			consumer.accept(batch[k]);
+		}
+		return count;
+	}
+	
+	/**
+	 * Removes up to maxElements elements without waiting and stores them in target starting at offset, taking the
+	 * lock once for the whole batch.
+	 * @param target the array receiving the elements.
+	 * @param offset the index in target of the first element.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 * @throws IndexOutOfBoundsException if offset and maxElements do not describe a range of target.
+	 */
+	public int drainTo(E[] target, int offset, int maxElements){
+		lock.lock();
+		try{
+			return drain(target, offset, maxElements);
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the number of elements the queue holds before the policy applies.
+	 * @return the capacity.
+	 */
+	public int capacity(){
+		return capacity;
+	}
+
+	/**
+	 * Returns the backpressure policy.
+	 * @return the policy given when the queue was created.
+	 */
+	public Backpressure policy(){
+		return policy;
+	}
+
+	/**
+	 * Returns how many elements the DROP_NEWEST or DROP_OLDEST policy has discarded so far.
+	 * @return the number of dropped elements.
+	 */
+	public long dropped(){
+		lock.lock();
+		try{
+			return dropped;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns an iterator over a snapshot of the elements from the front to the back, taken under the lock, so it
+	 * never throws ConcurrentModificationException.
+	 * @return an iterator over the elements.
+	 */
+	public Iterator<E> iterator(){
+		AArrayList<E> snapshot;
+		lock.lock();
+		try{
+			snapshot = new AArrayList<E>(queue.size());
+			for(E e:queue){
+				snapshot.add(snapshot.size(), e);
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+		return snapshot.iterator();
+	}
+
+	//Adds e and wakes a waiting consumer. The callers never get here with a full BLOCK queue, so a full queue means
+	//dropping either e or the front element. Must hold lock.
+	private boolean insert(E e){
+		if(queue.size() == capacity){
+			if(policy == Backpressure.DROP_NEWEST){
+				dropped++;
+				return false;
+			}
+			queue.dequeue(); //DROP_OLDEST
+			dropped++;
+		}
+		queue.enqueue(e);
+		notEmpty.signal();
+		return true;
+	}
+
+	//Removes the front element of a non-empty queue and wakes a waiting producer. Must hold lock.
+	private E extract(){
+		E e = queue.dequeue();
+		notFull.signal();
+		return e;
+	}
+
+	//Adds the elements one at a time under a single acquisition of the lock, waiting for room under BLOCK.
+	private void insertAll(Iterable<? extends E> elements){
+		lock.lock();
+		try{
+			for(E e:elements){
+				checkElement(e);
+				while(policy == Backpressure.BLOCK && queue.size() == capacity){
+					notFull.awaitUninterruptibly();
+				}
+				insert(e);
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+	
+	//Moves up to maxElements elements into target with the underlying queue's batch drain, and wakes every waiting
+	//producer since several slots may have been freed. Must hold lock.
+	private int drain(E[] target, int offset, int maxElements){
+		int count = queue.drainTo(target, offset, maxElements);
+		if(count > 0){
+			notFull.signalAll();
+		}
+		return count;
+	}
+	
+	//Throws if e is null, since null is what poll returns for an empty queue.
+	private static void checkElement(Object e){
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(E element:this){
+			str.append(element + " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
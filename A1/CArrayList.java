@@ -0,0 +1,218 @@
+package eecs2011;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Circular array list. It uses the same front index and modular arithmetic as AQueue, so the first element does
+ * not have to live at index 0 of the array. This makes adding and removing at either end O(1), and elements in
+ * the middle are shifted toward whichever end is closer. Unlike AQueue it grows instead of throwing when full.
+ */
+public class CArrayList<E> implements List<E> {
+	public static final int DEFAULT_CAPACITY=10;
+	private E[] data;
+	private int front=0; //index of the first element in the array
+	private int size=0;
+	private int modCount=0; //number of structural changes, used to make the iterators fail fast
+
+	//Constructor
+	public CArrayList(){
+		this(DEFAULT_CAPACITY); //Creates a list of default capacity.
+	}
+
+	@SuppressWarnings("unchecked")
+	public CArrayList(int capacity){
+		data = (E[]) new Object[capacity];
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element e to be at index I, shifting the elements on the shorter side of i by one.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		if(size==data.length){
+			resize(Math.max(1, 2*data.length));
+		}
+		if(i < size/2){
+			front = (front - 1 + data.length)%data.length; //the front moves back one slot
+			for(int k=0;k<i;k++){
+				data[position(k)] = data[position(k+1)]; //elements before i shift toward the front
+			}
+		}
+		else{
+			for(int k=size;k>i;k--){
+				data[position(k)] = data[position(k-1)]; //elements after i shift toward the back
+			}
+		}
+		data[position(i)] = e;
+		size++;
+		modCount++;
+		//Runs in O(min(i, n-i)) time, so O(1) at both ends, plus O(n) if the array has to be resized.
+	}
+
+	/**
+	 * Returns the element at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E get(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		return data[position(i)];
+		//Runs in O(1) time because the array position is found with modular arithmetic.
+	}
+
+	/**
+	 * Removes and returns the element at index I, shifting the elements on the shorter side of i by one.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E remove(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		E temp = data[position(i)];
+		if(i < size/2){
+			for(int k=i;k>0;k--){
+				data[position(k)] = data[position(k-1)];
+			}
+			data[front] = null;
+			front = (front + 1)%data.length;
+		}
+		else{
+			for(int k=i;k<size-1;k++){
+				data[position(k)] = data[position(k+1)];
+			}
+			data[position(size-1)] = null;
+		}
+		size--;
+		modCount++;
+		return temp;
+		//Runs in O(min(i, n-i)) time, so O(1) at both ends.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int p = position(i);
+		E temp = data[p];
+		data[p] = e;
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/** Inserts an element at the front of the list. Runs in O(1) amortized time. */
+	public void addFirst(E e){
+		add(0, e);
+	}
+
+	/** Inserts an element at the back of the list. Runs in O(1) amortized time. */
+	public void addLast(E e){
+		add(size, e);
+	}
+
+	/**
+	 * Removes and returns the first element of the list. Runs in O(1) time.
+	 * @throws IndexOutOfBoundsException if the list is empty.
+	 */
+	public E removeFirst() throws IndexOutOfBoundsException{
+		return remove(0);
+	}
+
+	/**
+	 * Removes and returns the last element of the list. Runs in O(1) time.
+	 * @throws IndexOutOfBoundsException if the list is empty.
+	 */
+	public E removeLast() throws IndexOutOfBoundsException{
+		return remove(size-1);
+	}
+
+	/**
+	 * Returns an iterator over the elements in order, starting at the front index and wrapping around the array.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private int cursor = 0;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return cursor < size;
+			}
+
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(cursor >= size){
+					throw new NoSuchElementException();
+				}
+				return data[position(cursor++)];
+			}
+		};
+	}
+
+	//Converts an index of the list into an index of the array, wrapping around like AQueue does.
+	private int position(int i){
+		return (front + i)%data.length;
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	//Creates a bigger array and copies the elements over, unwrapping them so the front ends up at index 0.
+	//The wrapped ring is at most two blocks, so it takes two block copies. Takes O(n) time.
+	private void resize(int capacity){
+		@SuppressWarnings("unchecked")
+		E[] temp = (E[]) new Object[capacity];
+		int first = Math.min(size, data.length - front); //elements from front to the end of the array
+		System.arraycopy(data, front, temp, 0, first);
+		System.arraycopy(data, 0, temp, first, size - first); //elements that wrapped around to the start
+		data = temp;
+		front = 0;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(int k=0;k<size;k++){
+			str.append(data[position(k)]+ " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
@@ -0,0 +1,186 @@
+package eecs2011;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Thread safe copy-on-write list. The elements are kept in an array that is never modified once it has been
+ * published. Every write copies the array, changes the copy, and publishes it with a single volatile write, so
+ * readers never lock: they read whichever array is current and always see a consistent list. Writers are
+ * serialized with a lock so that two writes cannot overwrite each other's copy.
+ * This suits lists that are read far more often than they are written; each write costs O(n).
+ */
+public class COWArrayList<E> implements List<E> {
+	private static final Object[] EMPTY = new Object[0];
+	private volatile Object[] array = EMPTY; //the current snapshot; never modified after it is published
+	private final ReentrantLock lock = new ReentrantLock(); //held by writers only
+
+	//Constructor
+	public COWArrayList(){}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return array.length;
+		//Runs in O(1) time without locking.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return array.length == 0;
+		//Runs in O(1) time without locking.
+	}
+
+	/**
+	 * Inserts an element e to be at index I, shifting all elements after this, and publishes the new array.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		lock.lock();
+		try{
+			Object[] current = array;
+			checkIndex(i, current.length+1);
+			Object[] next = new Object[current.length+1];
+			System.arraycopy(current, 0, next, 0, i);
+			System.arraycopy(current, i, next, i+1, current.length-i);
+			next[i] = e;
+			array = next; //publishes the new snapshot
+		}
+		finally{
+			lock.unlock();
+		}
+		//Runs in O(n) time because the array is copied.
+	}
+
+	/**
+	 * Returns the element at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int i) throws IndexOutOfBoundsException{
+		Object[] current = array; //reads the snapshot once so the check and the access agree
+		checkIndex(i, current.length);
+		return (E) current[i];
+		//Runs in O(1) time without locking.
+	}
+
+	/**
+	 * Removes and returns the element at index I, shifting the elements after this, and publishes the new array.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E remove(int i) throws IndexOutOfBoundsException{
+		lock.lock();
+		try{
+			Object[] current = array;
+			checkIndex(i, current.length);
+			Object[] next = new Object[current.length-1];
+			System.arraycopy(current, 0, next, 0, i);
+			System.arraycopy(current, i+1, next, i, current.length-i-1);
+			array = next;
+			return (E) current[i];
+		}
+		finally{
+			lock.unlock();
+		}
+		//Runs in O(n) time because the array is copied.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i, and publishes the new array.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		lock.lock();
+		try{
+			Object[] current = array;
+			checkIndex(i, current.length);
+			Object[] next = current.clone();
+			next[i] = e;
+			array = next;
+			return (E) current[i];
+		}
+		finally{
+			lock.unlock();
+		}
+		//Runs in O(n) time because the array is copied.
+	}
+
+	/**
+	 * Applies several changes with a single copy. The edits are made to a private AArrayList holding the current
+	 * elements, and the result is published as one new snapshot once they are done, so readers see either none
+	 * or all of them. Other writers wait until the batch is published.
+	 * @param edits the changes to make to the list.
+	 */
+	@SuppressWarnings("unchecked")
+	public void batch(Consumer<? super List<E>> edits){
+		lock.lock();
+		try{
+			Object[] current = array;
+			AArrayList<E> work = new AArrayList<E>(current.length + AArrayList.DEFAULT_CAPACITY);
+			work.addAll(0, (E[]) current);
+			edits.accept(work);
+			array = work.toArray();
+		}
+		finally{
+			lock.unlock();
+		}
+		//Runs in O(n+k) time for k edits, instead of O(k*n) when each edit publishes its own copy.
+	}
+
+	/**
+	 * Returns an iterator over the snapshot that is current when this method is called. Taking the snapshot is
+	 * O(1), the iterator never locks, and later writes do not affect it.
+	 * @return an iterator over the elements in order.
+	 */
+	public Iterator<E> iterator(){
+		return Spliterators.iterator(spliterator());
+	}
+
+	/**
+	 * Returns a spliterator over the current snapshot. Since the snapshot never changes it is IMMUTABLE and can
+	 * be split for parallel streams.
+	 * @return a spliterator over the elements in order.
+	 */
+	public Spliterator<E> spliterator(){
+		return Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	public String toString(){
+		Object[] current = array;
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(int k=0;k<current.length;k++){
+			str.append(current[k]+ " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
@@ -0,0 +1,267 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Unbounded queue made of fixed-size array chunks linked together, a cross between AQueue and LQueue. Elements are
+ * stored next to each other in a chunk like in AQueue's ring, and when the tail chunk is full a new chunk is linked
+ * after it like a node in LQueue, so there is no capacity limit and nothing is ever copied to grow. That is one
+ * allocation per chunkSize elements instead of one Node per element. A chunk emptied by dequeue goes into a small
+ * pool and is reused by a later enqueue, so a queue whose size goes up and down allocates nothing in steady state.
+ */
+public class ChunkedQueue<E> implements Queue<E> {
+	public static final int DEFAULT_CHUNK_SIZE=256;
+	public static final int DEFAULT_POOL_SIZE=4;
+
+	//Chunk class holding a block of elements.
+	private static class Chunk{
+		private final Object[] elements;
+		private Chunk next;
+
+		public Chunk(int size){
+			this.elements = new Object[size];
+		}
+	}
+
+	private final int chunkSize;
+	private final int maxPooled; //most empty chunks kept for reuse
+	private Chunk head; //chunk holding the front element
+	private Chunk tail; //chunk the next element is added to
+	private int headIndex = 0; //position of the front element in head
+	private int tailIndex = 0; //position of the next element in tail
+	private Chunk pool = null; //stack of empty chunks, linked through next
+	private int pooled = 0;
+	private int size = 0;
+	private int modCount = 0; //number of enqueues and dequeues, used to make the iterators fail fast
+
+	//Constructors
+	public ChunkedQueue(){
+		this(DEFAULT_CHUNK_SIZE, DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * Creates an empty queue.
+	 * @param chunkSize the number of elements per chunk.
+	 * @param maxPooled the most empty chunks kept for reuse.
+	 */
+	public ChunkedQueue(int chunkSize, int maxPooled){
+		if(chunkSize < 1){
+			throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+		}
+		if(maxPooled < 0){
+			throw new IllegalArgumentException("Illegal pool size: " + maxPooled);
+		}
+		this.chunkSize = chunkSize;
+		this.maxPooled = maxPooled;
+		head = tail = new Chunk(chunkSize);
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the queue.
+	 * @return an integer value which corresponds to the size of the queue.
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return this.size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns, but does not remove, the first element of the queue (null if empty).
+	 * @return first element
+	 */
+	@SuppressWarnings("unchecked")
+	public E front(){
+		if(this.isEmpty()){
+			return null;
+		}
+		return (E) head.elements[headIndex];
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue, linking a new (or pooled) chunk if the tail chunk is full.
+	 * @param e the object to be inserted in the back.
+	 */
+	public void enqueue(E e){
+		if(tailIndex == chunkSize){
+			linkChunk();
+		}
+		tail.elements[tailIndex++] = e;
+		this.size++;
+		this.modCount++;
+		//Runs in O(1) time, and allocates only once every chunkSize elements, unless a pooled chunk is reused.
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty). A chunk that is left empty is returned
+	 * to the pool.
+	 * @return the first element of the queue
+	 */
+	@SuppressWarnings("unchecked")
+	public E dequeue(){
+		if(this.isEmpty()){
+			return null;
+		}
+		E temp = (E) head.elements[headIndex];
+		head.elements[headIndex++] = null; //so the element can be garbage collected
+		this.size--;
+		this.modCount++;
+		if(headIndex == chunkSize || this.size == 0){
+			advanceHead();
+		}
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts the elements of the array at the rear of the queue, in order, copying them a chunk at a time.
+	 * @param elements the objects to be inserted in the back.
+	 */
+	public void enqueueAll(E[] elements){
+		int k = 0;
+		while(k < elements.length){
+			if(tailIndex == chunkSize){
+				linkChunk();
+			}
+			int count = Math.min(elements.length - k, chunkSize - tailIndex);
+			System.arraycopy(elements, k, tail.elements, tailIndex, count);
+			tailIndex += count;
+			k += count;
+		}
+		this.size += elements.length;
+		this.modCount++;
+		//Takes O(k) time, as one block copy per chunk.
+	}
+
+	/**
+	 * Removes up to maxElements elements from the front and stores them in target starting at offset, copying them a
+	 * chunk at a time.
+	 * @param target the array receiving the elements.
+	 * @param offset the index in target of the first element.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 * @throws IndexOutOfBoundsException if offset and maxElements do not describe a range of target.
+	 */
+	public int drainTo(E[] target, int offset, int maxElements){
+		Objects.checkFromIndexSize(offset, maxElements, target.length);
+		int total = Math.min(maxElements, size);
+		int k = 0;
+		while(k < total){
+			int count = Math.min(total - k, chunkSize - headIndex);
+			System.arraycopy(head.elements, headIndex, target, offset + k, count);
+			Arrays.fill(head.elements, headIndex, headIndex + count, null);
+			headIndex += count;
+			k += count;
+			this.size -= count;
+			if(headIndex == chunkSize || this.size == 0){
+				advanceHead();
+			}
+		}
+		this.modCount++;
+		return total;
+		//Takes O(k) time, as one block copy per chunk.
+	}
+
+	/**
+	 * Returns an iterator over the elements from the front to the back, without removing them.
+	 * @return an iterator that throws ConcurrentModificationException if the queue changes while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private Chunk chunk = head;
+			private int index = headIndex;
+			private int remaining = size;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return remaining > 0;
+			}
+
+			@SuppressWarnings("unchecked")
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(remaining == 0){
+					throw new NoSuchElementException();
+				}
+				if(index == chunkSize){
+					chunk = chunk.next;
+					index = 0;
+				}
+				remaining--;
+				return (E) chunk.elements[index++];
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of empty chunks currently kept for reuse.
+	 * @return the number of pooled chunks.
+	 */
+	public int pooledChunks(){
+		return pooled;
+	}
+
+	//Links an empty chunk after the full tail chunk, taking it from the pool if there is one.
+	private void linkChunk(){
+		Chunk chunk;
+		if(pool != null){
+			chunk = pool;
+			pool = chunk.next;
+			pooled--;
+		}
+		else{
+			chunk = new Chunk(chunkSize);
+		}
+		chunk.next = null;
+		tail.next = chunk;
+		tail = chunk;
+		tailIndex = 0;
+	}
+
+	//Called when the head chunk has been used up. If the queue is now empty the one remaining chunk is simply reused
+	//from the start; otherwise the head moves to the next chunk and the old one goes to the pool.
+	private void advanceHead(){
+		if(head == tail){
+			headIndex = tailIndex = 0;
+			return;
+		}
+		Chunk empty = head;
+		head = head.next;
+		headIndex = 0;
+		if(pooled < maxPooled){
+			empty.next = pool;
+			pool = empty;
+			pooled++;
+		}
+		else{
+			empty.next = null; //left for the garbage collector
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{");
+		for(E element:this){
+			str.append(" "+element);
+		}
+		str.append(" }");
+		return str.toString();
+	}
+}
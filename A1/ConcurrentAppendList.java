@@ -0,0 +1,195 @@
+package eecs2011;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread safe, append-only list for many producer threads. Elements are stored in segments that double in size
+ * (1024, 2048, 4096, ...), so the list grows by adding a segment and never copies what is already stored.
+ * An append reserves its index with a compare-and-set on the size and then publishes the element into that slot
+ * with a volatile write, so producers never block each other. The segment is allocated before the index is
+ * reserved, so once a thread holds an index the only step left is the write itself. Readers can call get(i)
+ * without locking once the slot has been published. Elements cannot be removed, inserted in the middle, or be null
+ * (an empty slot means "not yet published").
+ */
+public class ConcurrentAppendList<E> implements List<E> {
+	private static final int FIRST_SHIFT=10; //the first segment holds 2^10 elements
+	private static final int FIRST_SIZE=1 << FIRST_SHIFT;
+	private static final int SEGMENTS=31-FIRST_SHIFT; //enough segments to reach Integer.MAX_VALUE elements
+	public static final int MAX_SIZE=Integer.MAX_VALUE-FIRST_SIZE;
+	private final AtomicReferenceArray<AtomicReferenceArray<E>> segments = new AtomicReferenceArray<AtomicReferenceArray<E>>(SEGMENTS);
+	private final AtomicInteger reserved = new AtomicInteger(); //number of indices handed out so far, at most MAX_SIZE
+
+	//Constructor
+	public ConcurrentAppendList(){
+		segments.set(0, new AtomicReferenceArray<E>(FIRST_SIZE)); //the first segment is preallocated
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list. This counts every index that has been reserved, so an element
+	 * that is still being appended is already counted; get waits for it.
+	 * @return size
+	 */
+	public int size(){
+		return reserved.get();
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return reserved.get() == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Appends an element to the end of the list. Safe to call from any number of threads at once.
+	 * @param e the element being appended.
+	 * @return the index the element was stored at.
+	 * @throws NullPointerException if e is null.
+	 * @throws IllegalStateException if the list already holds MAX_SIZE elements.
+	 */
+	public int append(E e){
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+		while(true){
+			int i = reserved.get();
+			if(i >= MAX_SIZE){
+				throw new IllegalStateException("Cannot add element. List is full"); //a full list never moves the counter
+			}
+			int j = i + FIRST_SIZE;
+			AtomicReferenceArray<E> segment = segment(segmentOf(j)); //allocated first, so an OutOfMemoryError leaves no hole
+			if(reserved.compareAndSet(i, i+1)){ //the only shared write, so appends do not wait for each other
+				segment.set(offsetOf(j), e); //volatile write publishes the element
+				return i;
+			}
+		}
+		//Runs in O(1) time, retrying only when another thread took the same index. A new segment is allocated once
+		//every time the list doubles, and nothing is copied.
+	}
+
+	/**
+	 * Appends an element if I is the current size of the list. Inserting anywhere else is not supported.
+	 * The check and the append happen atomically, so when several threads call add(size(), e) only one of them
+	 * gets each index.
+	 * @param i the index the element should end up at; must be the current size.
+	 * @param e the element being appended.
+	 * @throws UnsupportedOperationException if i < size, which would be an insertion.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+		while(true){
+			int n = reserved.get();
+			if(i < 0 || i > n || i >= MAX_SIZE){
+				throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+			}
+			if(i < n){
+				throw new UnsupportedOperationException("List is append-only");
+			}
+			int j = i + FIRST_SIZE;
+			AtomicReferenceArray<E> segment = segment(segmentOf(j));
+			if(reserved.compareAndSet(n, n+1)){
+				segment.set(offsetOf(j), e);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the element at index I. If the index has been reserved but the appending thread has not published
+	 * the element yet, this waits for it. That is at most one volatile write away, since the segment already exists.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E get(int i) throws IndexOutOfBoundsException{
+		checkIndex(i, size());
+		int j = i + FIRST_SIZE;
+		return published(segment(segmentOf(j)), offsetOf(j));
+		//Runs in O(1) time without locking.
+	}
+
+	/**
+	 * Always throws, since elements cannot be removed from an append-only list.
+	 * @throws UnsupportedOperationException always.
+	 */
+	public E remove(int i) throws IndexOutOfBoundsException{
+		throw new UnsupportedOperationException("List is append-only");
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the new element.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+		checkIndex(i, size());
+		int j = i + FIRST_SIZE;
+		AtomicReferenceArray<E> segment = segment(segmentOf(j));
+		published(segment, offsetOf(j)); //waits for the original append so it cannot overwrite this one
+		return segment.getAndSet(offsetOf(j), e);
+		//Runs in O(1) time.
+	}
+
+	//Index i is stored at position j = i + FIRST_SIZE. The highest bit of j picks the segment and the remaining bits
+	//are the offset inside it, since segment s holds the positions [2^(s+FIRST_SHIFT), 2^(s+FIRST_SHIFT+1)).
+	private static int segmentOf(int j){
+		return 31 - Integer.numberOfLeadingZeros(j) - FIRST_SHIFT;
+	}
+
+	private static int offsetOf(int j){
+		return j ^ Integer.highestOneBit(j);
+	}
+
+	//Returns segment s, allocating it if no thread has done so yet. If two threads race, one CAS wins and both use
+	//the winner's segment.
+	private AtomicReferenceArray<E> segment(int s){
+		AtomicReferenceArray<E> segment = segments.get(s);
+		if(segment == null){
+			segments.compareAndSet(s, null, new AtomicReferenceArray<E>(FIRST_SIZE << s));
+			segment = segments.get(s);
+		}
+		return segment;
+	}
+
+	//Waits until the element in the given slot has been published and returns it. The appender allocated the segment
+	//before reserving the slot, so nothing that can fail stands between the reservation and this write.
+	private static <E> E published(AtomicReferenceArray<E> segment, int offset){
+		E e;
+		while((e = segment.get(offset)) == null){
+			Thread.onSpinWait(); //the appending thread reserved the slot but has not written it yet
+		}
+		return e;
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		int n = size();
+		for(int k=0;k<n;k++){
+			str.append(get(k)+ " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
@@ -0,0 +1,206 @@
+package eecs2011;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Array based list that keeps the unused capacity as a "gap" at the position of the last edit, like the buffer of a
+ * text editor. Elements before the gap sit at the front of the array and elements after it sit at the back.
+ * Inserting or removing next to the gap is O(1), and moving the gap to a new position only shifts the elements
+ * between the old and the new position.
+ */
+public class GapBuffer<E> implements List<E> {
+	public static final int DEFAULT_CAPACITY=10;
+	private E[] data;
+	private int gapStart=0; //index of the first free slot, which is also the logical index of the gap
+	private int gapEnd; //index of the first slot after the gap
+	private int modCount=0; //number of structural changes, used to make the iterators fail fast
+
+	//Constructor
+	public GapBuffer(){
+		this(DEFAULT_CAPACITY); //Creates a buffer of default capacity.
+	}
+
+	@SuppressWarnings("unchecked")
+	public GapBuffer(int capacity){
+		data = (E[]) new Object[capacity];
+		gapEnd = capacity; //the whole array starts out as the gap
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return data.length - (gapEnd - gapStart);
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size() == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element e to be at index I. The gap is moved to I first, so the element simply fills its first slot.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i, size()+1);
+		if(gapStart == gapEnd){
+			resize(Math.max(1, 2*data.length)); //the gap is used up
+		}
+		moveGap(i);
+		data[gapStart++] = e;
+		modCount++;
+		//Runs in O(1) amortized time when i is at the gap, plus O(d) to move the gap a distance d.
+	}
+
+	/**
+	 * Returns the element at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E get(int i) throws IndexOutOfBoundsException{
+		checkIndex(i, size());
+		return data[position(i)];
+		//Runs in O(1) time. Reading does not move the gap.
+	}
+
+	/**
+	 * Removes and returns the element at index I. The gap is moved to I first, so the gap simply grows by one slot.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E remove(int i) throws IndexOutOfBoundsException{
+		checkIndex(i, size());
+		moveGap(i);
+		E temp = data[gapEnd];
+		data[gapEnd++] = null; //the element after the gap becomes part of the gap
+		modCount++;
+		return temp;
+		//Runs in O(1) time when i is at the gap, plus O(d) to move the gap a distance d.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i, size());
+		int p = position(i);
+		E temp = data[p];
+		data[p] = e;
+		return temp;
+		//Runs in O(1) time. Setting does not move the gap.
+	}
+
+	/**
+	 * Returns the logical index of the gap, which is where the last insertion or removal happened.
+	 * @return the index the next cheap edit can be made at.
+	 */
+	public int cursor(){
+		return gapStart;
+	}
+
+	/**
+	 * Returns an iterator over the elements in order. It walks the array and jumps over the gap once.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private int p = (gapStart == 0) ? gapEnd : 0; //index of the next element in the backing array
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return p < data.length;
+			}
+
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(p >= data.length){
+					throw new NoSuchElementException();
+				}
+				E e = data[p++];
+				if(p == gapStart){
+					p = gapEnd; //skips over the gap
+				}
+				return e;
+			}
+		};
+	}
+
+	//Converts a logical index into an index of the backing array by skipping over the gap.
+	private int position(int i){
+		return (i < gapStart) ? i : i + (gapEnd - gapStart);
+	}
+
+	//Moves the gap so that it starts at logical index i. Only the elements between the old and new position move.
+	private void moveGap(int i){
+		if(i < gapStart){
+			int k = gapStart - i;
+			System.arraycopy(data, i, data, gapEnd-k, k); //elements [i, gapStart) move to just before gapEnd
+			for(int j=i;j<Math.min(gapStart, gapEnd-k);j++){
+				data[j] = null; //clears the slots that became part of the gap
+			}
+			gapStart -= k;
+			gapEnd -= k;
+		}
+		else if(i > gapStart){
+			int k = i - gapStart;
+			System.arraycopy(data, gapEnd, data, gapStart, k); //elements after the gap move to its front
+			for(int j=Math.max(gapEnd, gapStart+k);j<gapEnd+k;j++){
+				data[j] = null;
+			}
+			gapStart += k;
+			gapEnd += k;
+		}
+		//Runs in O(d) time where d is the distance the gap moves.
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	//Creates a bigger array, keeping the elements before the gap at the front and the ones after it at the back.
+	//Takes O(n) time.
+	private void resize(int capacity){
+		@SuppressWarnings("unchecked")
+		E[] temp = (E[]) new Object[capacity];
+		int after = data.length - gapEnd;
+		System.arraycopy(data, 0, temp, 0, gapStart);
+		System.arraycopy(data, gapEnd, temp, capacity-after, after);
+		gapEnd = capacity - after;
+		data = temp;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(int k=0;k<size();k++){
+			str.append(data[position(k)]+ " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
@@ -0,0 +1,358 @@
+package eecs2011;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Ring queue of primitive ints. It has the same contract as AQueue, including its overflow policies, but keeps its
+ * values in an int[] instead of an Object[], so enqueue does not box and dequeue does not unbox or follow a pointer.
+ * Since an int cannot be null, dequeueInt and frontInt return a configurable empty value (-1 by default) when the
+ * queue is empty; pollInt reports emptiness with a boolean instead, for queues where every int is a valid value.
+ */
+public class IntRingQueue implements Queue<Integer> {
+	public static final int DEFAULT_CAPACITY=16;
+	private int[] data; //its length is always a power of two, so indices wrap around with a bitmask
+	private int mask; //data.length - 1
+	private int front=0; //index of the front value
+	private int size=0;
+	private int capacity; //most values the queue holds before the overflow policy applies
+	private final AQueue.Overflow overflow;
+	private final int emptyValue; //returned by dequeueInt and frontInt when the queue is empty
+	private int modCount=0; //number of enqueues and dequeues, used to make the iterators fail fast
+
+	//Constructors
+	/** Initializes a queue that grows as needed, with -1 as the empty value. */
+	public IntRingQueue(){
+		this(DEFAULT_CAPACITY, AQueue.Overflow.GROW);
+	}
+
+	/** Initializes a queue with the given capacity and overflow policy, with -1 as the empty value. */
+	public IntRingQueue(int capacity, AQueue.Overflow overflow){
+		this(capacity, overflow, -1);
+	}
+
+	/**
+	 * Initializes a queue with the given capacity, overflow policy and empty value. The array is rounded up to a
+	 * power of two, but a bounded queue still applies its policy at exactly capacity values.
+	 * @param capacity the number of values the queue holds before the policy applies (the starting capacity for GROW).
+	 * @param overflow what to do when a value is enqueued while the queue is full.
+	 * @param emptyValue what dequeueInt and frontInt return when the queue is empty.
+	 */
+	public IntRingQueue(int capacity, AQueue.Overflow overflow, int emptyValue){
+		if(capacity < 0 || capacity > 1 << 30){
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		int length = Integer.highestOneBit(Math.max(1, capacity));
+		if(length < capacity){
+			length <<= 1;
+		}
+		data = new int[length];
+		mask = length - 1;
+		this.capacity = (overflow == AQueue.Overflow.GROW) ? length : capacity;
+		this.overflow = overflow;
+		this.emptyValue = emptyValue;
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of values in the queue.
+	 * @return an integer value which corresponds to the size of the queue.
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return this.size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns, but does not remove, the front value.
+	 * @return the front value, or the empty value if the queue is empty.
+	 */
+	public int frontInt(){
+		if(isEmpty()){
+			return emptyValue;
+		}
+		return data[front];
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts a value at the rear of the queue. If the queue is full, the overflow policy decides whether to throw,
+	 * drop v, drop the front value or grow.
+	 * @param v the value to be inserted in the back.
+	 * @throws IllegalStateException if the queue is full and its policy is THROW.
+	 */
+	public void enqueueInt(int v){
+		if(this.size == capacity && overflow == AQueue.Overflow.THROW){
+			throw new IllegalStateException("Cannot add element. Queue is full");
+		}
+		offerInt(v);
+		//Takes O(1) time, amortized for GROW.
+	}
+
+	/**
+	 * Inserts a value at the rear of the queue unless it is full and its policy rejects the value.
+	 * A full THROW queue rejects like a REJECT queue instead of throwing.
+	 * @param v the value to be inserted in the back.
+	 * @return true if v was added, false if it was rejected.
+	 * @throws IllegalStateException if a GROW queue already has the largest possible array.
+	 */
+	public boolean offerInt(int v){
+		if(this.size == capacity){
+			switch(overflow){
+				case GROW:
+					if(data.length == 1 << 30){
+						throw new IllegalStateException("Cannot add element. Queue is too large");
+					}
+					resize(2*data.length);
+					break;
+				case OVERWRITE:
+					if(capacity == 0){
+						return false;
+					}
+					dequeueInt(); //drops the oldest value to make room
+					break;
+				default:
+					return false;
+			}
+		}
+		data[(front + size) & mask] = v;
+		this.size++;
+		this.modCount++;
+		return true;
+		//Takes O(1) time, amortized for GROW, and allocates nothing unless the queue grows.
+	}
+
+	/**
+	 * Removes and returns the front value.
+	 * @return the front value, or the empty value if the queue is empty.
+	 */
+	public int dequeueInt(){
+		if(this.size == 0){
+			return emptyValue;
+		}
+		int temp = data[front];
+		front = (front + 1) & mask; //no slot needs to be cleared since there is no reference to release
+		this.size--;
+		this.modCount++;
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Removes the front value and passes it to the action, if the queue is not empty. Unlike dequeueInt this works
+	 * even when the empty value could also be a real value.
+	 * @param action receives the front value.
+	 * @return true if a value was removed, false if the queue is empty.
+	 */
+	public boolean pollInt(IntConsumer action){
+		if(this.size == 0){
+			return false;
+		}
+		action.accept(dequeueInt());
+		return true;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts the values of the array at the rear of the queue, in order, with at most two block copies. If they do
+	 * not all fit, the policy is applied once for the whole batch, as in AQueue.enqueueAll: THROW throws without
+	 * adding any, GROW grows once to fit them all, REJECT adds only the leading values that fit, and OVERWRITE drops
+	 * as many of the oldest values as needed.
+	 * @param values the values to be inserted in the back.
+	 * @throws IllegalStateException if the values do not fit and the policy is THROW.
+	 */
+	public void enqueueAll(int[] values){
+		int from = makeRoom(values.length);
+		int count = Math.min(values.length - from, capacity - size);
+		int back = (front + size) & mask;
+		int first = Math.min(count, data.length - back); //the part that fits before the end of the array
+		System.arraycopy(values, from, data, back, first);
+		System.arraycopy(values, from + first, data, 0, count - first);
+		this.size += count;
+		this.modCount++;
+		//Takes O(k) time for k values, as two block copies instead of k separate enqueues.
+	}
+
+	/**
+	 * Removes up to maxElements values from the front and stores them in target starting at offset, with at most
+	 * two block copies.
+	 * @param target the array receiving the values.
+	 * @param offset the index in target of the first value.
+	 * @param maxElements the most values to remove.
+	 * @return the number of values removed.
+	 * @throws IndexOutOfBoundsException if offset and maxElements do not describe a range of target.
+	 */
+	public int drainTo(int[] target, int offset, int maxElements){
+		Objects.checkFromIndexSize(offset, maxElements, target.length);
+		int count = Math.min(maxElements, size);
+		int first = Math.min(count, data.length - front); //the part before the end of the array
+		System.arraycopy(data, front, target, offset, first);
+		System.arraycopy(data, 0, target, offset + first, count - first);
+		front = (front + count) & mask;
+		this.size -= count;
+		this.modCount++;
+		return count;
+		//Takes O(k) time, as block copies.
+	}
+
+	/**
+	 * Returns the number of values the queue holds before its overflow policy applies.
+	 * @return the capacity; for a GROW queue this is the current array length.
+	 */
+	public int capacity(){
+		return capacity;
+	}
+
+	/**
+	 * Returns the value dequeueInt and frontInt return when the queue is empty.
+	 * @return the empty value.
+	 */
+	public int emptyValue(){
+		return emptyValue;
+	}
+
+	/**
+	 * Returns an iterator over the values from the front to the back, without removing them or boxing them when
+	 * nextInt is used.
+	 * @return an iterator that throws ConcurrentModificationException if the queue changes while it is in use.
+	 */
+	public PrimitiveIterator.OfInt iterator(){
+		return new PrimitiveIterator.OfInt(){
+			private int k = 0; //number of values returned so far
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return k < size;
+			}
+
+			public int nextInt(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(k >= size){
+					throw new NoSuchElementException();
+				}
+				return data[(front + k++) & mask];
+			}
+		};
+	}
+
+	/**
+	 * Returns a sequential stream over the values from the front to the back, without boxing them.
+	 * @return an IntStream over the values.
+	 */
+	public IntStream intStream(){
+		return StreamSupport.intStream(Spliterators.spliterator(iterator(), size, Spliterator.ORDERED), false);
+	}
+
+	//Boxed versions of the methods above so that the class can be used wherever a Queue<Integer> is expected.
+
+	/** Returns the element at the front without removing it (null if empty). */
+	public Integer front(){
+		return isEmpty() ? null : frontInt();
+	}
+
+	/**
+	 * Inserts an element at the end of the queue.
+	 * @throws NullPointerException if e is null, since a primitive slot cannot hold it.
+	 */
+	public void enqueue(Integer e){
+		enqueueInt(e);
+	}
+
+	/** Removes and returns the element at the front of the queue (null if empty). */
+	public Integer dequeue(){
+		return isEmpty() ? null : dequeueInt();
+	}
+
+	/**
+	 * Inserts the elements of the array at the end of the queue, in order, unboxing them into enqueueAll(int[]).
+	 * @throws NullPointerException if an element is null, in which case nothing is added.
+	 */
+	public void enqueueAll(Integer[] elements){
+		int[] values = new int[elements.length];
+		for(int k=0;k<values.length;k++){
+			values[k] = elements[k];
+		}
+		enqueueAll(values);
+	}
+
+	/**
+	 * Inserts the elements of the list at the end of the queue, in order, unboxing them into enqueueAll(int[]).
+	 * @throws NullPointerException if an element is null, in which case nothing is added.
+	 */
+	public void enqueueAll(List<? extends Integer> elements){
+		int[] values = new int[elements.size()];
+		int k = 0;
+		for(Integer e:elements){
+			values[k++] = e;
+		}
+		enqueueAll(values);
+	}
+
+	//Applies the overflow policy before n values are added. Returns how many leading values of the batch are
+	//skipped, which is only non-zero when OVERWRITE gets more values than it can hold.
+	private int makeRoom(int n){
+		long excess = (long) size + n - capacity;
+		if(excess <= 0){
+			return 0;
+		}
+		switch(overflow){
+			case THROW:
+				throw new IllegalStateException("Cannot add elements. Queue is full");
+			case GROW:
+				if((long) size + n > 1 << 30){
+					throw new IllegalStateException("Cannot add elements. Queue is too large");
+				}
+				int length = Integer.highestOneBit(size + n);
+				resize(length < size + n ? length << 1 : length); //grows once for the whole batch
+				return 0;
+			case OVERWRITE:
+				int drop = (int) Math.min(excess, size);
+				front = (front + drop) & mask; //no slot needs to be cleared since there is no reference to release
+				this.size -= drop;
+				return (int) excess - drop;
+			default:
+				return 0; //REJECT adds only what fits
+		}
+	}
+
+	//Doubles the array and unwraps the ring so the front ends up at index 0, with two block copies. Takes O(n) time.
+	private void resize(int length){
+		int[] temp = new int[length];
+		int first = Math.min(size, data.length - front);
+		System.arraycopy(data, front, temp, 0, first);
+		System.arraycopy(data, 0, temp, first, size - first);
+		data = temp;
+		mask = length - 1;
+		front = 0;
+		capacity = length;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(int k=0;k<size;k++){
+			str.append(data[(front + k) & mask] + " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
@@ -1,15 +1,23 @@
 package eecs2011;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
 public class LArrayList<E> implements List<E>{
 
 	//Node class responsible for creating the nodes of the LinkedList.
 	private static class Node<E>{
 		private E element; //the element part of the node
 		private Node<E> next; //the address to the next node
+		private Node<E> prev; //the address to the previous node
 		
-		//Creates a node with user-defined object and links it to another node.
-		public Node(E e, Node<E> n){
+		//Creates a node with user-defined object and links it to the nodes before and after it.
+		public Node(E e, Node<E> p, Node<E> n){
 			this.element = e;
+			this.prev = p;
 			this.next = n;
 		}
 		
@@ -26,12 +34,24 @@ public class LArrayList<E> implements List<E>{
 		public void setNext(Node<E> n){
 			this.next = n;
 		}
+		
+		public Node<E> getPrev(){
+			return this.prev;
+		}
+		
+		public void setPrev(Node<E> p){
+			this.prev = p;
+		}
 		public void setElement(E e){
 			this.element = e;
 		}
 	}
 	private int size = 0;
+	private int modCount = 0; //number of structural changes, used to make the iterators fail fast
 	Node <E> head = null; //The starting node of the LinkedList
+	private Node<E> tail = null; //The last node of the LinkedList
+	private Node<E> finger = null; //The node accessed most recently, so nearby indices can be reached from it
+	private int fingerIndex = 0; //The index of the finger node
 	
 	//Constructor
 	public LArrayList(){}
@@ -60,45 +80,53 @@ public class LArrayList<E> implements List<E>{
 	 * Inserts an element e to be at index I, by creating a new node between 2 adjacent nodes
 	 * @param i the index of the array.
 	 * @param e the element being inserted in the LinkedList.
-	 * @throws IndexOutOfBoundsException if i < 0 or i >= size.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
 	 */
 	public void add(int i, E e) throws IndexOutOfBoundsException{
 		checkIndex(i,size+1);
-		Node<E> newest = new Node<E>(e,null); //Creates a new node
-		Node<E> temp = head; //for traversing purposes we set a node equal to the head.
-		if(i==0){ //if the insertion point is at the start.
-			newest.setNext(head);  
-			head = newest; 
+		Node<E> newest;
+		if(i==size){ //inserting at the end only needs the tail
+			newest = new Node<E>(e, tail, null);
+			if(tail == null){
+				head = newest;
+			}
+			else{
+				tail.setNext(newest);
+			}
+			tail = newest;
 		}
 		else{
-			for(int j=1; j<i; j++){ //loops through the node until the insertion point is found.
-				temp = temp.getNext();
+			Node<E> after = node(i); //the node currently at index i ends up right after the new one
+			newest = new Node<E>(e, after.getPrev(), after);
+			if(after.getPrev() == null){
+				head = newest;
+			}
+			else{
+				after.getPrev().setNext(newest);
 			}
-			newest.setNext(temp.getNext());
-			temp.setNext(newest); //Sets the previous node equal the new node
+			after.setPrev(newest);
 		}
+		finger = newest; //the new node is at index i, so the finger stays valid
+		fingerIndex = i;
 		this.size++;
-		//The traversal of the array takes O(n) running time because a linked list does not have direct access to its
-		//nodes. In the worst case, one can add an element at the end of the list which means that we must traverse
-		//n elements. However, since the actual add operation is composed solely of primitive operation, the actual
-		//add operation takes O(1) time.
+		this.modCount++;
+		//Finding the node takes O(d) time where d is the distance from i to the closest of the head, the tail and
+		//the finger. That makes adding at either end O(1), and adding near the last accessed index O(1) as well.
+		//The actual add operation is composed solely of primitive operations, so it takes O(1) time.
 	}
 	
 	/**
-	 * Returns the element at index I, without removing it. Loops through each node.
+	 * Returns the element at index I, without removing it. Walks from whichever of the head, the tail or the finger
+	 * is closest to i.
 	 * @param i 
 	 * @return the element of the array at the provided index 
 	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
 	 */
 	public E get(int i) throws IndexOutOfBoundsException{
 		checkIndex(i,size);
-		Node<E> temp = head;
-		for(int j=0;j<i;j++){
-			temp = temp.getNext();
-		}
-		return temp.getElement();
-		//Since linked lists don't have direct access to their nodes, we must traverse through each of them. This
-		//means that the method runs in O(n) time.
+		return node(i).getElement();
+		//Runs in O(d) time for the same reason as add. A loop calling get(0), get(1), get(2), ... only moves the
+		//finger one step each time, so the whole loop is O(n) instead of O(n^2).
 	}
 	
 	/**
@@ -109,21 +137,32 @@ public class LArrayList<E> implements List<E>{
 	 */
 	public E remove(int i)throws IndexOutOfBoundsException{
 		checkIndex(i, size);
-		Node<E> temp = head;
-		E retVal;
-		if(i==0){
-			retVal = head.getElement();
-			head=head.getNext();
+		Node<E> temp = node(i);
+		Node<E> before = temp.getPrev();
+		Node<E> after = temp.getNext();
+		if(before == null){
+			head = after;
 		}
 		else{
-			for(int j=1; j<i;j++){
-				temp = temp.getNext();
-			}
-			retVal = temp.getElement();
-			temp.setNext(temp.getNext().getNext());
+			before.setNext(after);
+		}
+		if(after == null){
+			tail = before;
+		}
+		else{
+			after.setPrev(before);
+		}
+		if(after != null){ //the node after the removed one moves into index i
+			finger = after;
+			fingerIndex = i;
+		}
+		else{
+			finger = before;
+			fingerIndex = i-1;
 		}
 		this.size--;
-		return retVal;
+		this.modCount++;
+		return temp.getElement();
 		//Same reasoning as the add method. This means that it takes O(1) time for the actual remove operation.
 	}
 	
@@ -136,15 +175,126 @@ public class LArrayList<E> implements List<E>{
 	 */
 	public E set(int i, E e) throws IndexOutOfBoundsException{
 		checkIndex(i, size);
-		Node<E> temp = head;
-		E retVal;
-		for(int j=0;j<i;j++){
-			temp=temp.getNext();
-		}
-		retVal = temp.getElement();
+		Node<E> temp = node(i);
+		E retVal = temp.getElement();
 		temp.setElement(e);
 		return retVal;
-		//Same reasoning as the get method,which means it takes O(n) time to run this method.
+		//Same reasoning as the get method.
+	}
+	
+	//Returns the node at index i, walking from whichever of the head, the tail or the finger is closest, and moves
+	//the finger there. Assumes i is a valid index.
+	private Node<E> node(int i){
+		Node<E> temp;
+		int j;
+		if(finger != null && Math.abs(i - fingerIndex) < Math.min(i, size-1-i)){
+			temp = finger;
+			j = fingerIndex;
+		}
+		else if(i <= size-1-i){
+			temp = head;
+			j = 0;
+		}
+		else{
+			temp = tail;
+			j = size-1;
+		}
+		while(j < i){
+			temp = temp.getNext();
+			j++;
+		}
+		while(j > i){
+			temp = temp.getPrev();
+			j--;
+		}
+		finger = temp;
+		fingerIndex = i;
+		return temp;
+		//Runs in O(d) time, where d is at most n/2.
+	}
+	
+	/**
+	 * Returns an iterator over the elements in order. It follows the next references, so a full pass is O(n)
+	 * instead of the O(n^2) of calling get(i) for every index.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new NodeIterator();
+	}
+	
+	/**
+	 * Returns a spliterator that walks the nodes in order. A linked list cannot be split without walking it, so
+	 * it does not split and parallel streams over it run sequentially.
+	 * @return a SIZED spliterator that fails fast like the iterator.
+	 */
+	public Spliterator<E> spliterator(){
+		return new NodeSpliterator();
+	}
+	
+	//Iterator that follows the next references and checks modCount on every step.
+	private class NodeIterator implements Iterator<E>{
+		private Node<E> cursor = head;
+		private final int expectedModCount = modCount;
+		
+		public boolean hasNext(){
+			return cursor != null;
+		}
+		
+		public E next(){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+			if(cursor == null){
+				throw new NoSuchElementException();
+			}
+			E e = cursor.getElement();
+			cursor = cursor.getNext();
+			return e;
+		}
+	}
+	
+	//Sequential spliterator that follows the next references.
+	private class NodeSpliterator implements Spliterator<E>{
+		private Node<E> cursor = head;
+		private int remaining = size;
+		private final int expectedModCount = modCount;
+		
+		public boolean tryAdvance(Consumer<? super E> action){
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+			if(cursor == null){
+				return false;
+			}
+			action.accept(cursor.getElement());
+			cursor = cursor.getNext();
+			remaining--;
+			return true;
+		}
+		
+		public void forEachRemaining(Consumer<? super E> action){
+			for(Node<E> n=cursor;n!=null;n=n.getNext()){
+				action.accept(n.getElement());
+			}
+			cursor = null;
+			remaining = 0;
+			if(modCount != expectedModCount){
+				throw new ConcurrentModificationException();
+			}
+		}
+		
+		public Spliterator<E> trySplit(){
+			return null;
+		}
+		
+		public long estimateSize(){
+			return remaining;
+		}
+		
+		public int characteristics(){
+			return ORDERED | SIZED;
+		}
 	}
 	
 	//Method that checks if the given index is within the defined bounds
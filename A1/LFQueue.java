@@ -0,0 +1,259 @@
+package eecs2011;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Unbounded, lock-free linked queue for any number of threads (the Michael-Scott queue). It keeps LQueue's head and
+ * tail design, with two differences. The head always points at a dummy node whose element has already been
+ * dequeued, so enqueue and dequeue never have to update both ends together. Links are changed with compare-and-set
+ * instead of plain writes. An enqueue first CASes the new node onto the last node's next link, then swings tail to
+ * it; any thread that finds tail lagging behind swings it forward itself, so no thread ever waits on another.
+ * A dequeue CASes head one node forward. Every operation takes effect at a single successful CAS, which makes the
+ * queue linearizable.
+ * A node that leaves the queue is linked to itself and its element is cleared, so a dequeued node never keeps the
+ * rest of the queue, or its element, reachable from a stale reference. Null elements are not allowed, since dequeue
+ * returns null for an empty queue.
+ */
+public class LFQueue<E> implements Queue<E> {
+
+	//Node class whose links are updated atomically.
+	private static class Node<E>{
+		private volatile E element;
+		private volatile Node<E> next;
+
+		public Node(E e){
+			this.element = e;
+		}
+
+		public boolean casNext(Node<E> expect, Node<E> update){
+			return NEXT.compareAndSet(this, expect, update);
+		}
+	}
+
+	private static final VarHandle NEXT;
+	private static final VarHandle HEAD;
+	private static final VarHandle TAIL;
+	static{
+		try{
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+			HEAD = lookup.findVarHandle(LFQueue.class, "head", Node.class);
+			TAIL = lookup.findVarHandle(LFQueue.class, "tail", Node.class);
+		}
+		catch(ReflectiveOperationException e){
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private volatile Node<E> head; //dummy node; the front element is in head.next
+	private volatile Node<E> tail; //the last node, or a node at most a few steps before it
+
+	//Constructor
+	public LFQueue(){
+		head = tail = new Node<E>(null);
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the queue by counting them. Other threads may be changing the queue, so the
+	 * result is only an estimate.
+	 * @return the number of elements.
+	 */
+	public int size(){
+		int count = 0;
+		for(Node<E> p=first();p!=null;p=successor(p)){
+			if(p.element != null && ++count == Integer.MAX_VALUE){
+				break;
+			}
+		}
+		return count;
+		//Runs in O(n) time, since keeping a shared counter would make every operation contend on it.
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return front() == null;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns, but does not remove, the first element of the queue (null if empty). By the time the caller looks at
+	 * it, another thread may already have dequeued it.
+	 * @return first element
+	 */
+	public E front(){
+		while(true){
+			Node<E> h = head;
+			Node<E> first = h.next;
+			if(first == null){
+				return null;
+			}
+			E e = first.element;
+			if(e != null && h == head){
+				return e;
+			}
+		}
+		//Runs in O(1) time unless other threads keep dequeuing.
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue. Safe to call from any number of threads.
+	 * @param e the object to be inserted in the back.
+	 * @throws NullPointerException if e is null.
+	 */
+	public void enqueue(E e){
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+		Node<E> last = new Node<E>(e);
+		while(true){
+			Node<E> t = tail;
+			Node<E> next = t.next;
+			if(t != tail){
+				continue; //t was read before another thread moved tail
+			}
+			if(next == null){
+				if(t.casNext(null, last)){
+					TAIL.compareAndSet(this, t, last); //if this fails another thread has already moved tail on
+					return;
+				}
+			}
+			else{
+				TAIL.compareAndSet(this, t, next); //helps an enqueue that linked its node but has not moved tail yet
+			}
+		}
+		//Runs in O(1) time apart from retries when threads collide.
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty). Safe to call from any number of threads.
+	 * @return the first element of the queue
+	 */
+	public E dequeue(){
+		while(true){
+			Node<E> h = head;
+			Node<E> t = tail;
+			Node<E> first = h.next;
+			if(h != head){
+				continue; //h was read before another thread dequeued
+			}
+			if(first == null){
+				return null;
+			}
+			if(h == t){
+				TAIL.compareAndSet(this, t, first); //tail must not fall behind head, so help the pending enqueue
+				continue;
+			}
+			E e = first.element;
+			if(HEAD.compareAndSet(this, h, first)){
+				first.element = null; //first is the new dummy node
+				h.next = h; //h leaves the queue and stops keeping its successors reachable
+				return e;
+			}
+		}
+		//Runs in O(1) time apart from retries when threads collide.
+	}
+
+	/**
+	 * Removes and returns the first element of the queue. The same as dequeue, named to match the other concurrent
+	 * queues.
+	 * @return the first element of the queue, or null if it is empty.
+	 */
+	public E poll(){
+		return dequeue();
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue. Since the queue is unbounded this always succeeds.
+	 * @param e the object to be inserted in the back.
+	 * @return true.
+	 */
+	public boolean offer(E e){
+		enqueue(e);
+		return true;
+	}
+
+	/**
+	 * Removes up to maxElements elements from the front and passes them to the consumer in order. Other consumers
+	 * may be removing elements at the same time, so this stops early once the queue is seen empty.
+	 * @param consumer receives the removed elements.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 */
+	public int drainTo(Consumer<? super E> consumer, int maxElements){
+		int count = 0;
+		E e;
+		while(count < maxElements && (e = poll()) != null){
+			consumer.accept(e);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements from the front to the back, without removing them.
+	 * It never throws ConcurrentModificationException, and reflects some of the changes made while it is in use.
+	 * @return an iterator over the elements.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private Node<E> cursor = first();
+			private E nextElement = advance();
+
+			//Moves cursor to the next node that still holds an element and returns that element.
+			private E advance(){
+				while(cursor != null){
+					E e = cursor.element;
+					Node<E> p = cursor;
+					cursor = successor(p);
+					if(e != null){
+						return e;
+					}
+				}
+				return null;
+			}
+
+			public boolean hasNext(){
+				return nextElement != null;
+			}
+
+			public E next(){
+				if(nextElement == null){
+					throw new NoSuchElementException();
+				}
+				E e = nextElement;
+				nextElement = advance();
+				return e;
+			}
+		};
+	}
+
+	//Returns the node after the dummy, or null if the queue is empty.
+	private Node<E> first(){
+		return head.next;
+	}
+
+	//Returns the node after p. If p has been dequeued (it links to itself), starts over from the current front.
+	private Node<E> successor(Node<E> p){
+		Node<E> next = p.next;
+		return (next == p) ? first() : next;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{");
+		for(E element:this){
+			str.append(" "+element);
+		}
+		str.append(" }");
+		return str.toString();
+	}
+}
@@ -1,5 +1,12 @@
 package eecs2011;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
 public class LQueue<E> implements Queue<E>{
 	
 	//Node class responsible for creating the nodes of the LinkedList.
@@ -31,6 +38,7 @@ public class LQueue<E> implements Queue<E>{
 	private Node<E> head = null; //The starting node of the LinkedList
 	private Node<E> tail; //The last node of the LinkedList which serves as the end of the list
 	private int size = 0;
+	private int modCount = 0; //number of enqueues and dequeues, used to make the iterators fail fast
 	
 	//Constructor
 	public LQueue(){}
@@ -83,6 +91,7 @@ public class LQueue<E> implements Queue<E>{
 		}
 		tail = last;
 		this.size++;
+		this.modCount++;
 		//Runs in O(1) time as we have both references to the head and tail of the Linked List. This means that we
 		//can use the setters and getters on either one of them depending on the situation, which takes constant time
 		//since they are all primitive operations.
@@ -99,6 +108,7 @@ public class LQueue<E> implements Queue<E>{
 		E temp = head.getElement();
 		head = head.getNext();
 		this.size--;
+		this.modCount++;
 		if(this.size==0){
 			tail=null;
 		}
@@ -106,6 +116,175 @@ public class LQueue<E> implements Queue<E>{
 		//All these operations are primitive, hence this method runs in O(1) time.
 	}
 	
+	/**
+	 * Inserts the elements of the array at the rear of the queue, in order. The nodes are linked into a chain first,
+	 * and the chain is then spliced after the tail in one step.
+	 * @param elements the objects to be inserted in the back.
+	 */
+	public void enqueueAll(E[] elements){
+		linkAll(Arrays.asList(elements), elements.length);
+	}
+	
+	/**
+	 * Inserts the elements of the list at the rear of the queue, in order, by splicing a pre-linked chain of nodes
+	 * after the tail.
+	 * @param elements the objects to be inserted in the back.
+	 */
+	public void enqueueAll(List<? extends E> elements){
+		linkAll(elements, elements.size());
+	}
+	
+	/**
+	 * Moves every element of another LQueue to the rear of this one, leaving the other queue empty. Its nodes are
+	 * spliced in as they are, so nothing is copied or allocated.
+	 * @param other the queue whose elements are moved; must not be this queue.
+	 * @throws IllegalArgumentException if other is this queue.
+	 */
+	public void enqueueAll(LQueue<E> other){
+		if(other == this){
+			throw new IllegalArgumentException("Cannot move a queue into itself");
+		}
+		if(other.isEmpty()){
+			return;
+		}
+		splice(other.head, other.tail, other.size);
+		other.head = other.tail = null;
+		other.size = 0;
+		other.modCount++;
+		//Runs in O(1) time, since only the two ends of the chain are relinked.
+	}
+	
+	/**
+	 * Removes up to maxElements elements from the front and passes them to the consumer in order.
+	 * @param consumer receives the removed elements.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 */
+	public int drainTo(Consumer<? super E> consumer, int maxElements){
+		int count = 0;
+		try{
+			while(count < maxElements && head != null){
+				consumer.accept(head.getElement());
+				head = head.getNext();
+				count++;
+			}
+		}
+		finally{
+			this.size -= count; //if the consumer throws, only the elements it accepted are removed
+			this.modCount++;
+			if(head == null){
+				tail = null;
+			}
+		}
+		return count;
+		//Runs in O(k) time, updating the size once for the whole batch.
+	}
+	
+	//Links n elements into a chain of new nodes and splices it after the tail. Runs in O(n) time to build the chain
+	//and O(1) time to splice it.
+	private void linkAll(Iterable<? extends E> elements, int n){
+		if(n == 0){
+			return;
+		}
+		Iterator<? extends E> it = elements.iterator();
+		Node<E> first = new Node<E>(it.next(), null);
+		Node<E> last = first;
+		for(int k=1;k<n;k++){
+			Node<E> node = new Node<E>(it.next(), null);
+			last.setNext(node);
+			last = node;
+		}
+		splice(first, last, n);
+	}
+	
+	//Links the chain first..last of n nodes after the tail.
+	private void splice(Node<E> first, Node<E> last, int n){
+		if(this.isEmpty()){
+			head = first;
+		}
+		else{
+			tail.setNext(first);
+		}
+		tail = last;
+		this.size += n;
+		this.modCount++;
+	}
+	
+	/**
+	 * Returns an iterator over the elements from the front to the back, without removing them.
+	 * @return an iterator that throws ConcurrentModificationException if the queue changes while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private Node<E> cursor = head;
+			private final int expectedModCount = modCount;
+			
+			public boolean hasNext(){
+				return cursor != null;
+			}
+			
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(cursor == null){
+					throw new NoSuchElementException();
+				}
+				E e = cursor.getElement();
+				cursor = cursor.getNext();
+				return e;
+			}
+		};
+	}
+	
+	/**
+	 * Returns a sequential spliterator that walks the nodes from the front to the back.
+	 * @return a SIZED spliterator that fails fast like the iterator.
+	 */
+	public Spliterator<E> spliterator(){
+		return new Spliterator<E>(){
+			private Node<E> cursor = head;
+			private int remaining = size;
+			private final int expectedModCount = modCount;
+			
+			public boolean tryAdvance(Consumer<? super E> action){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(cursor == null){
+					return false;
+				}
+				action.accept(cursor.getElement());
+				cursor = cursor.getNext();
+				remaining--;
+				return true;
+			}
+			
+			public void forEachRemaining(Consumer<? super E> action){
+				for(Node<E> n=cursor;n!=null;n=n.getNext()){
+					action.accept(n.getElement());
+				}
+				cursor = null;
+				remaining = 0;
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+			}
+			
+			public Spliterator<E> trySplit(){
+				return null; //a linked queue cannot be split without walking it
+			}
+			
+			public long estimateSize(){
+				return remaining;
+			}
+			
+			public int characteristics(){
+				return ORDERED | SIZED;
+			}
+		};
+	}
+	
 	public String toString(){
 		StringBuffer str = new StringBuffer();
 		Node<E> temp = this.head;
@@ -1,6 +1,13 @@
 package eecs2011;
 
-public interface List<E> {
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public interface List<E> extends Iterable<E> {
 	/** Returns the number of elements in this list */
 	public int size();
 	
@@ -18,4 +25,40 @@ public interface List<E> {
 	
 	/** Replaces the element at index I with e, returning the previous element at i. */
 	public E set(int I, E e) throws IndexOutOfBoundsException;
+	
+	/**
+	 * Returns an iterator over the elements in order. This default walks the indices with get(i), which is fine for
+	 * array based lists; linked lists override it to walk their nodes instead.
+	 */
+	public default Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private int cursor = 0;
+			
+			public boolean hasNext(){
+				return cursor < size();
+			}
+			
+			public E next(){
+				if(cursor >= size()){
+					throw new NoSuchElementException();
+				}
+				return get(cursor++);
+			}
+		};
+	}
+	
+	/** Returns a spliterator over the elements in order. It knows its size but does not split well by default. */
+	public default Spliterator<E> spliterator(){
+		return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+	}
+	
+	/** Returns a sequential stream over the elements of this list. */
+	public default Stream<E> stream(){
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/** Returns a possibly parallel stream over the elements of this list. */
+	public default Stream<E> parallelStream(){
+		return StreamSupport.stream(spliterator(), true);
+	}
 }
\ No newline at end of file
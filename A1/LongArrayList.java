@@ -0,0 +1,262 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Array based list of primitive longs. It has the same contract as AArrayList but keeps its values in a
+ * long[] instead of an Object[], so there is no Long box behind every slot.
+ */
+public class LongArrayList implements List<Long> {
+	public static final int DEFAULT_CAPACITY=10;
+	private long[] data;
+	private int size=0;
+	private int modCount=0; //number of structural changes, used to make the iterators fail fast
+
+	//Constructor
+	public LongArrayList(){
+		this(DEFAULT_CAPACITY); //Creates a list of default capacity.
+	}
+
+	public LongArrayList(int capacity){
+		data = new long[capacity];
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts the value v to be at index I, shifting all elements after this
+	 * @param i the index of the array.
+	 * @param v the value being inserted in the array.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void addLong(int i, long v) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		if(size==data.length){
+			resize(Math.max(1, 2*data.length));
+		}
+		System.arraycopy(data, i, data, i+1, size-i); //shifts the tail one spot to the right in a single block move
+		data[i]=v;
+		size++;
+		modCount++;
+		//Runs in O(n) time in the worst case, when inserting at index 0.
+	}
+
+	/**
+	 * Appends the value v to the end of the list.
+	 * @param v the value being appended.
+	 */
+	public void addLong(long v){
+		addLong(size, v);
+		//Runs in O(1) amortized time since nothing needs to be shifted.
+	}
+
+	/**
+	 * Returns the value at index I, without removing it.
+	 * @param i the index of the array.
+	 * @return the value at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public long getLong(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		return data[i];
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Removes and returns the value at index I, shifting the elements after this
+	 * @param i the array index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public long removeLong(int i) throws IndexOutOfBoundsException{
+		checkIndex(i, size);
+		long temp = data[i];
+		System.arraycopy(data, i+1, data, i, size-i-1);
+		modCount++;
+		size--; //no slot needs to be cleared since there is no reference to release.
+		return temp;
+		//Runs in O(n) time in the worst case, when removing index 0.
+	}
+
+	/**
+	 * Replaces the value at index I with v, returning the previous value at i.
+	 * @param i the index of the array.
+	 * @param v the new value.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public long setLong(int i, long v) throws IndexOutOfBoundsException{
+		checkIndex(i, size);
+		long temp = data[i];
+		data[i] = v;
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Sorts the values in ascending order.
+	 */
+	public void sort(){
+		Arrays.sort(data, 0, size);
+		modCount++;
+		//Runs in O(n log n) time.
+	}
+
+	/**
+	 * Sorts the values in ascending order, splitting the work over the threads of the common ForkJoinPool.
+	 */
+	public void parallelSort(){
+		Arrays.parallelSort(data, 0, size);
+		modCount++;
+		//Runs in O(n log n) work, divided among the pool's threads.
+	}
+
+	/**
+	 * Searches the sorted list for the key.
+	 * @param key the value to look for.
+	 * @return the index of the key if it is found, otherwise (-(insertion point) - 1).
+	 */
+	public int binarySearch(long key){
+		return Arrays.binarySearch(data, 0, size, key);
+		//Runs in O(log n) time.
+	}
+
+	/**
+	 * Returns the index of the first value that is not less than the key in the sorted list.
+	 * @param key the value to compare against.
+	 * @return an index between 0 and size.
+	 */
+	public int lowerBound(long key){
+		int lo = 0, hi = size;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(data[mid] < key){
+				lo = mid + 1;
+			}
+			else{
+				hi = mid;
+			}
+		}
+		return lo;
+		//Runs in O(log n) time.
+	}
+
+	/**
+	 * Returns the index of the first value that is greater than the key in the sorted list.
+	 * @param key the value to compare against.
+	 * @return an index between 0 and size.
+	 */
+	public int upperBound(long key){
+		int lo = 0, hi = size;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(data[mid] <= key){
+				lo = mid + 1;
+			}
+			else{
+				hi = mid;
+			}
+		}
+		return lo;
+		//Runs in O(log n) time.
+	}
+
+	/**
+	 * Returns an iterator over the values in order, without boxing them when nextLong is used.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public PrimitiveIterator.OfLong iterator(){
+		return new PrimitiveIterator.OfLong(){
+			private int cursor = 0;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return cursor < size;
+			}
+
+			public long nextLong(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(cursor >= size){
+					throw new NoSuchElementException();
+				}
+				return data[cursor++];
+			}
+		};
+	}
+
+	//Boxed versions of the methods above so that the class can be used wherever a List<Long> is expected.
+
+	/**
+	 * Inserts an element e to be at index I, shifting all elements after this.
+	 * @throws NullPointerException if e is null, since a primitive slot cannot hold it.
+	 */
+	public void add(int i, Long e) throws IndexOutOfBoundsException{
+		addLong(i, e);
+	}
+
+	/** Returns the element at index I, without removing it. */
+	public Long get(int i) throws IndexOutOfBoundsException{
+		return getLong(i);
+	}
+
+	/** Removes and returns the element at index I, shifting the elements after this. */
+	public Long remove(int i) throws IndexOutOfBoundsException{
+		return removeLong(i);
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @throws NullPointerException if e is null, since a primitive slot cannot hold it.
+	 */
+	public Long set(int i, Long e) throws IndexOutOfBoundsException{
+		return setLong(i, e);
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	//Creates a bigger array and block copies all the entries from the old to new. Takes O(n) time.
+	private void resize(int capacity){
+		long[] temp = new long[capacity];
+		System.arraycopy(data, 0, temp, 0, size);
+		data = temp;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(int k=0;k<size;k++){
+			str.append(data[k]+ " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
@@ -0,0 +1,283 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Primitive long version of BigArrayList. The segments are long[] instead of Object[], so there is no Long box
+ * behind every slot. The boxed BigList methods are kept so it can be used wherever a BigList<Long> is expected.
+ */
+public class LongBigArrayList implements BigList<Long> {
+	public static final int SEGMENT_SHIFT=20; //each segment holds 2^20 elements
+	public static final int SEGMENT_SIZE=1 << SEGMENT_SHIFT;
+	private static final int MASK=SEGMENT_SIZE-1;
+	private static final int MIN_SEGMENT_LENGTH=16;
+	private long[][] segments = new long[1][];
+	private int segmentCount=0; //number of segments allocated so far
+	private long size=0;
+
+	//Constructor
+	public LongBigArrayList(){}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public long size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Appends the value v to the end of the list.
+	 * @param v the value being added.
+	 */
+	public void addLong(long v){
+		ensureCapacity(size+1);
+		segments[(int) (size >>> SEGMENT_SHIFT)][(int) size & MASK] = v;
+		size++;
+		//Runs in O(1) amortized time.
+	}
+
+	/**
+	 * Inserts the value v to be at index I, shifting all elements after this one segment at a time.
+	 * @param i the index of the list.
+	 * @param v the value being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void addLong(long i, long v) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		ensureCapacity(size+1);
+		int first = (int) (i >>> SEGMENT_SHIFT);
+		int last = (int) (size >>> SEGMENT_SHIFT);
+		for(int s=last;s>first;s--){
+			int end = (s == last) ? (int) size & MASK : MASK;
+			System.arraycopy(segments[s], 0, segments[s], 1, end);
+			segments[s][0] = segments[s-1][MASK];
+		}
+		int off = (int) i & MASK;
+		int end = (first == last) ? (int) size & MASK : MASK;
+		System.arraycopy(segments[first], off, segments[first], off+1, end-off);
+		segments[first][off] = v;
+		size++;
+		//Runs in O(n-i) time.
+	}
+
+	/**
+	 * Returns the value at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the value at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public long getLong(long i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		return segments[(int) (i >>> SEGMENT_SHIFT)][(int) i & MASK];
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Removes and returns the value at index I, shifting the elements after this.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public long removeLong(long i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int first = (int) (i >>> SEGMENT_SHIFT);
+		int last = (int) ((size-1) >>> SEGMENT_SHIFT);
+		int off = (int) i & MASK;
+		long temp = segments[first][off];
+		int end = (first == last) ? (int) (size-1) & MASK : MASK;
+		System.arraycopy(segments[first], off+1, segments[first], off, end-off);
+		for(int s=first+1;s<=last;s++){
+			segments[s-1][MASK] = segments[s][0];
+			end = (s == last) ? (int) (size-1) & MASK : MASK;
+			System.arraycopy(segments[s], 1, segments[s], 0, end);
+		}
+		size--;
+		return temp;
+		//Runs in O(n-i) time.
+	}
+
+	/**
+	 * Replaces the value at index I with v, returning the previous value at i.
+	 * @param i the index of the list.
+	 * @param v the new value.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public long setLong(long i, long v) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		long[] segment = segments[(int) (i >>> SEGMENT_SHIFT)];
+		long temp = segment[(int) i & MASK];
+		segment[(int) i & MASK] = v;
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Performs the given action on every value, in order, walking one segment at a time.
+	 * @param action the action to perform.
+	 */
+	public void forEachLong(LongConsumer action){
+		forEachLong(0, size, action);
+		//Runs in O(n) time.
+	}
+
+	/**
+	 * Returns a spliterator over the values that walks the segments without boxing.
+	 * @return a spliterator over the values in order.
+	 */
+	public Spliterator.OfLong spliterator(){
+		return new SegmentSpliterator(0, size);
+	}
+
+	/**
+	 * Returns a sequential LongStream over the values.
+	 * @return a stream over the values in order.
+	 */
+	public LongStream longStream(){
+		return StreamSupport.longStream(spliterator(), false);
+	}
+
+	/**
+	 * Makes sure the list can hold at least the given number of elements. Only the last segment is ever copied.
+	 * @param capacity the minimum capacity needed.
+	 */
+	public void ensureCapacity(long capacity){
+		int needed = (int) ((capacity + MASK) >>> SEGMENT_SHIFT);
+		if(needed > segments.length){
+			segments = Arrays.copyOf(segments, Math.max(needed, 2*segments.length));
+		}
+		for(int s=Math.max(0, segmentCount-1);s<needed;s++){
+			int length = (s < needed-1) ? SEGMENT_SIZE : (int) Math.min(SEGMENT_SIZE, capacity - ((long) s << SEGMENT_SHIFT));
+			if(segments[s] == null){
+				segments[s] = new long[Math.max(MIN_SEGMENT_LENGTH, length)];
+			}
+			else if(segments[s].length < length){
+				segments[s] = Arrays.copyOf(segments[s], (int) Math.min(SEGMENT_SIZE, Math.max(length, 2L*segments[s].length)));
+			}
+		}
+		segmentCount = Math.max(segmentCount, needed);
+		//Runs in O(SEGMENT_SIZE) time at worst.
+	}
+
+	//Boxed versions of the methods above so that the class can be used wherever a BigList<Long> is expected.
+
+	/** Appends an element e to the end of the list. */
+	public void add(Long e){
+		addLong(e);
+	}
+
+	/** Inserts an element e to be at index I, shifting all elements after this. */
+	public void add(long i, Long e) throws IndexOutOfBoundsException{
+		addLong(i, (long) e);
+	}
+
+	/** Returns the element at index I, without removing it. */
+	public Long get(long i) throws IndexOutOfBoundsException{
+		return getLong(i);
+	}
+
+	/** Removes and returns the element at index I, shifting the elements after this. */
+	public Long remove(long i) throws IndexOutOfBoundsException{
+		return removeLong(i);
+	}
+
+	/** Replaces the element at index I with e, returning the previous element at i. */
+	public Long set(long i, Long e) throws IndexOutOfBoundsException{
+		return setLong(i, e);
+	}
+
+	/** Performs the given action on every element, in order. */
+	public void forEach(Consumer<? super Long> action){
+		forEachLong(action::accept);
+	}
+
+	//Calls action on the values from index FROM (inclusive) to index TO (exclusive), one segment at a time.
+	private void forEachLong(long from, long to, LongConsumer action){
+		while(from < to){
+			long[] segment = segments[(int) (from >>> SEGMENT_SHIFT)];
+			int start = (int) from & MASK;
+			int end = (int) Math.min(SEGMENT_SIZE, start + (to - from));
+			for(int k=start;k<end;k++){
+				action.accept(segment[k]);
+			}
+			from += end - start;
+		}
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(long i, long n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		forEachLong(v -> str.append(v + " "));
+		str.append("}");
+		return str.toString();
+	}
+
+	//Spliterator over the index range [index, fence). Splitting halves the range.
+	private class SegmentSpliterator implements Spliterator.OfLong {
+		private long index;
+		private final long fence;
+
+		SegmentSpliterator(long from, long to){
+			index = from;
+			fence = to;
+		}
+
+		public boolean tryAdvance(LongConsumer action){
+			if(index >= fence){
+				return false;
+			}
+			action.accept(segments[(int) (index >>> SEGMENT_SHIFT)][(int) index & MASK]);
+			index++;
+			return true;
+		}
+
+		public void forEachRemaining(LongConsumer action){
+			long from = index;
+			index = fence;
+			forEachLong(from, fence, action);
+		}
+
+		public Spliterator.OfLong trySplit(){
+			long mid = (index + fence) >>> 1;
+			if(mid <= index){
+				return null;
+			}
+			Spliterator.OfLong prefix = new SegmentSpliterator(index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		public long estimateSize(){
+			return fence - index;
+		}
+
+		public int characteristics(){
+			return ORDERED | SIZED | SUBSIZED | NONNULL;
+		}
+	}
+}
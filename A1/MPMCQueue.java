@@ -0,0 +1,264 @@
+package eecs2011;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Bounded, lock-free queue for any number of producer and consumer threads (Dmitry Vyukov's design). It uses the
+ * same power of two ring as AQueue, and every slot also carries a sequence number saying whose turn it is: a slot
+ * whose sequence equals the enqueue position is free for the producer that claims that position, and once written
+ * its sequence becomes position+1, the signal for the consumer that claims it. A producer claims a position with one
+ * CAS on the enqueue counter and a consumer with one CAS on the dequeue counter; the two counters are padded onto
+ * separate cache lines, so producers and consumers only meet on the slots themselves.
+ * Null elements are not allowed, since dequeue returns null for an empty queue.
+ */
+public class MPMCQueue<E> implements Queue<E> {
+	public static final int DEFAULT_CAPACITY=1024;
+	private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+	private final E[] data; //its length is a power of two
+	private final long[] sequences; //turn marker of each slot, read and written through SEQUENCE
+	private final int mask;
+	private final PaddedSequence enqueuePosition = new PaddedSequence(0); //next position a producer will claim
+	private final PaddedSequence dequeuePosition = new PaddedSequence(0); //next position a consumer will claim
+
+	//Constructors
+	public MPMCQueue(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a queue holding at least the given number of elements. The capacity is rounded up to a power of two.
+	 * @param capacity the minimum capacity, at least 2.
+	 */
+	@SuppressWarnings("unchecked")
+	public MPMCQueue(int capacity){
+		if(capacity < 2 || capacity > 1 << 30){
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		int length = Integer.highestOneBit(capacity);
+		if(length < capacity){
+			length <<= 1;
+		}
+		data = (E[]) new Object[length];
+		sequences = new long[length];
+		mask = length - 1;
+		for(int k=0;k<length;k++){
+			sequences[k] = k; //slot k is free for position k
+		}
+		VarHandle.releaseFence(); //publishes the initial sequences along with the queue
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the queue. Other threads may be changing it, so the result is only a
+	 * snapshot.
+	 * @return the number of elements, between 0 and the capacity.
+	 */
+	public int size(){
+		long d = dequeuePosition.get();
+		long e = enqueuePosition.get();
+		return (int) Math.max(0, Math.min(e - d, data.length));
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return size() == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns, but does not remove, the first element of the queue (null if empty). By the time the caller looks at
+	 * it, another consumer may already have dequeued it.
+	 * @return first element
+	 */
+	public E front(){
+		while(true){
+			long pos = dequeuePosition.get();
+			int slot = (int) pos & mask;
+			long seq = (long) SEQUENCE.getAcquire(sequences, slot);
+			if(seq < pos + 1){
+				return null;
+			}
+			E e = data[slot];
+			VarHandle.acquireFence(); //keeps the element read before the position is read again
+			if(seq == pos + 1 && dequeuePosition.get() == pos){
+				return e; //no consumer claimed the position while e was being read
+			}
+		}
+		//Runs in O(1) time unless consumers keep winning the race.
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue.
+	 * @param e the object to be inserted in the back.
+	 * @throws IllegalStateException if the queue is full.
+	 * @throws NullPointerException if e is null.
+	 */
+	public void enqueue(E e){
+		if(!offer(e)){
+			throw new IllegalStateException("Cannot add element. Queue is full");
+		}
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue if there is room. Safe to call from any number of threads.
+	 * @param e the object to be inserted in the back.
+	 * @return true if e was added, false if the queue is full.
+	 * @throws NullPointerException if e is null.
+	 */
+	public boolean offer(E e){
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+		long pos = enqueuePosition.get();
+		int slot;
+		while(true){
+			slot = (int) pos & mask;
+			long seq = (long) SEQUENCE.getAcquire(sequences, slot);
+			if(seq == pos){
+				if(enqueuePosition.compareAndSet(pos, pos + 1)){
+					break; //this thread owns the slot
+				}
+				pos = enqueuePosition.get();
+			}
+			else if(seq < pos){
+				return false; //the slot still holds the element from one lap ago, so the queue is full
+			}
+			else{
+				pos = enqueuePosition.get(); //another producer claimed pos already
+			}
+		}
+		data[slot] = e;
+		SEQUENCE.setRelease(sequences, slot, pos + 1); //hands the slot to the consumer of pos
+		return true;
+		//Runs in O(1) time apart from retries when producers collide, with one CAS when uncontended.
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty).
+	 * @return the first element of the queue
+	 */
+	public E dequeue(){
+		return poll();
+	}
+
+	/**
+	 * Removes and returns the first element of the queue. Safe to call from any number of threads.
+	 * @return the first element of the queue, or null if it is empty.
+	 */
+	public E poll(){
+		long pos = dequeuePosition.get();
+		int slot;
+		while(true){
+			slot = (int) pos & mask;
+			long seq = (long) SEQUENCE.getAcquire(sequences, slot);
+			if(seq == pos + 1){
+				if(dequeuePosition.compareAndSet(pos, pos + 1)){
+					break; //this thread owns the slot
+				}
+				pos = dequeuePosition.get();
+			}
+			else if(seq < pos + 1){
+				return null; //the producer of pos has not written the slot yet, so the queue is empty
+			}
+			else{
+				pos = dequeuePosition.get(); //another consumer claimed pos already
+			}
+		}
+		E temp = data[slot];
+		data[slot] = null; //so the element can be garbage collected
+		SEQUENCE.setRelease(sequences, slot, pos + data.length); //hands the slot to the producer one lap later
+		return temp;
+		//Runs in O(1) time apart from retries when consumers collide, with one CAS when uncontended.
+	}
+
+	/**
+	 * Returns the capacity of the queue.
+	 * @return the number of elements the queue can hold.
+	 */
+	public int capacity(){
+		return data.length;
+	}
+
+	/**
+	 * Removes up to maxElements elements from the front and passes them to the consumer in order. Other consumers
+	 * may be removing elements at the same time, so this stops early once the queue is seen empty.
+	 * @param consumer receives the removed elements.
+	 * @param maxElements the most elements to remove.
+	 * @return the number of elements removed.
+	 */
+	public int drainTo(Consumer<? super E> consumer, int maxElements){
+		int count = 0;
+		E e;
+		while(count < maxElements && (e = poll()) != null){
+			consumer.accept(e);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements from the front to the back, without removing them.
+	 * It never throws ConcurrentModificationException; it stops early at the first element that has been dequeued
+	 * (or not yet published) since it was created.
+	 * @return an iterator over the elements.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private long cursor = dequeuePosition.get();
+			private final long end = enqueuePosition.get();
+			private E nextElement = advance();
+
+			//Reads the element at cursor if it is still in place, or returns null to end the iteration. The slot's
+			//sequence is read before and after the element: if it is not cursor+1 both times, a consumer dequeued the
+			//element or a producer of a later lap reused the slot while it was being read.
+			private E advance(){
+				if(cursor >= end){
+					return null;
+				}
+				int slot = (int) cursor & mask;
+				if((long) SEQUENCE.getAcquire(sequences, slot) != cursor + 1){
+					return null;
+				}
+				E e = data[slot];
+				VarHandle.acquireFence(); //keeps the element read before the second sequence read
+				if(e == null || (long) SEQUENCE.getAcquire(sequences, slot) != cursor + 1){
+					return null;
+				}
+				cursor++;
+				return e;
+			}
+
+			public boolean hasNext(){
+				return nextElement != null;
+			}
+
+			public E next(){
+				if(nextElement == null){
+					throw new NoSuchElementException();
+				}
+				E e = nextElement;
+				nextElement = advance();
+				return e;
+			}
+		};
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(E element:this){
+			str.append(element + " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
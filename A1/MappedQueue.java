@@ -0,0 +1,442 @@
+package eecs2011;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Durable queue stored in a directory so its contents survive a restart. Elements are turned into bytes by a
+ * Serializer and appended as length-prefixed records to segment files of a fixed size, which are memory-mapped with
+ * FileChannel.map, so enqueue and dequeue are plain memory writes and reads. When a record does not fit in the rest
+ * of the last segment a new segment file is started, and segments the reader has moved past are deleted at the next
+ * sync. The read position is kept in a small mapped checkpoint file that dequeue updates in place.
+ * A record is a 4-byte header holding its length plus one, followed by the bytes; a header of 0 marks the end of the
+ * data in a segment (new files are zero-filled, and every record zeroes the header slot after it before it is
+ * published), and the header is written after the bytes so a torn record is never seen as complete. Opening a queue therefore only scans the records from the checkpoint onwards, never the whole
+ * history.
+ * The data reaches the page cache immediately and survives the process crashing; sync forces it to the disk so it
+ * also survives the machine crashing. Like AQueue this class is not thread safe.
+ */
+public class MappedQueue<E> implements Queue<E>, Closeable {
+	public static final int DEFAULT_SEGMENT_SIZE=1 << 26; //64 MB
+	private static final int HEADER=4; //bytes in a record header
+	private static final String SUFFIX=".seg";
+
+	/** Converts elements to and from the bytes of a record. */
+	public interface Serializer<E>{
+		/** Returns the number of bytes write will produce for e. */
+		public int sizeOf(E e);
+
+		/** Writes e at the position of out, which has exactly sizeOf(e) bytes remaining, and must fill them. */
+		public void write(E e, ByteBuffer out);
+
+		/** Reads an element from in, whose remaining bytes are exactly one record written by write. */
+		public E read(ByteBuffer in);
+
+		/**
+		 * Returns the bytes of the record for e, or null to have enqueue use sizeOf and write instead. Serializers that
+		 * only know the size after encoding override this, so the element is encoded once and the length in the
+		 * header is the length of the bytes actually written.
+		 */
+		public default byte[] toBytes(E e){
+			return null;
+		}
+
+		/**
+		 * Serializer for strings encoded as UTF-8. A string with an unpaired surrogate has no UTF-8 form, so it is
+		 * rejected with an IllegalArgumentException instead of being stored with a replacement character.
+		 */
+		public static final Serializer<String> UTF8 = new Serializer<String>(){
+			public byte[] toBytes(String s){
+				try{
+					ByteBuffer encoded = StandardCharsets.UTF_8.newEncoder().encode(CharBuffer.wrap(s)); //REPORTs malformed input
+					byte[] bytes = new byte[encoded.remaining()];
+					encoded.get(bytes);
+					return bytes;
+				}
+				catch(CharacterCodingException ex){
+					throw new IllegalArgumentException("String is not valid UTF-16", ex);
+				}
+			}
+
+			public int sizeOf(String s){
+				return toBytes(s).length;
+			}
+
+			public void write(String s, ByteBuffer out){
+				out.put(toBytes(s));
+			}
+
+			public String read(ByteBuffer in){
+				byte[] bytes = new byte[in.remaining()];
+				in.get(bytes);
+				return new String(bytes, StandardCharsets.UTF_8);
+			}
+		};
+	}
+
+	//One mapped segment file.
+	private static class Segment{
+		private final int index;
+		private final Path path;
+		private final MappedByteBuffer buffer;
+
+		public Segment(int index, Path path, MappedByteBuffer buffer){
+			this.index = index;
+			this.path = path;
+			this.buffer = buffer;
+		}
+	}
+
+	private final Path directory;
+	private final int segmentSize;
+	private final Serializer<E> serializer;
+	private final AArrayList<Segment> segments = new AArrayList<Segment>(); //from the reader's segment to the writer's
+	private final AArrayList<Path> consumed = new AArrayList<Path>(); //segments read to the end, deleted by sync
+	private final MappedByteBuffer checkpoint; //the read position, packed into one long
+	private int readOffset; //position of the next record in the first segment
+	private int writeOffset; //position of the next record in the last segment
+	private long count = 0; //number of records between the read and write positions
+	private int modCount = 0; //number of enqueues and dequeues, used to make the iterators fail fast
+	private boolean closed = false;
+
+	//Constructors
+	public MappedQueue(Path directory, Serializer<E> serializer) throws IOException{
+		this(directory, DEFAULT_SEGMENT_SIZE, serializer);
+	}
+
+	/**
+	 * Opens the queue stored in the directory, or creates an empty one. The records after the checkpointed read
+	 * position are scanned to find the end of the queue and count its elements.
+	 * @param directory the directory holding the segment files and the checkpoint; created if needed.
+	 * @param segmentSize the size of each segment file in bytes; a queue must always be opened with the same size.
+	 * @param serializer converts elements to and from bytes.
+	 * @throws IOException if the files cannot be created, read or mapped.
+	 */
+	public MappedQueue(Path directory, int segmentSize, Serializer<E> serializer) throws IOException{
+		if(segmentSize < 64 || segmentSize > 1 << 30){
+			throw new IllegalArgumentException("Illegal segment size: " + segmentSize);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.serializer = serializer;
+		Files.createDirectories(directory);
+		checkpoint = map(directory.resolve("checkpoint"), Long.BYTES);
+		recover();
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the queue.
+	 * @return an integer value which corresponds to the size of the queue, or Integer.MAX_VALUE if it is larger.
+	 */
+	public int size(){
+		return (int) Math.min(count, Integer.MAX_VALUE);
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return count == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns, but does not remove, the first element of the queue (null if empty). The record is decoded again on
+	 * every call.
+	 * @return first element
+	 */
+	public E front(){
+		checkOpen();
+		if(isEmpty()){
+			return null;
+		}
+		skipToData();
+		return decode(segments.get(0).buffer, readOffset);
+		//Runs in O(b) time for a record of b bytes.
+	}
+
+	/**
+	 * Appends an element as a record at the end of the last segment, starting a new segment if it does not fit.
+	 * @param e the object to be inserted in the back.
+	 * @throws IllegalArgumentException if the record is larger than a segment.
+	 * @throws IllegalStateException if the serializer writes a different number of bytes than sizeOf returned.
+	 * @throws UncheckedIOException if a new segment file cannot be created.
+	 */
+	public void enqueue(E e){
+		checkOpen();
+		byte[] bytes = serializer.toBytes(e); //encoded once, so the header and the bytes cannot disagree
+		int length = (bytes != null) ? bytes.length : serializer.sizeOf(e);
+		if(length < 0 || length > segmentSize - HEADER){
+			throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a segment");
+		}
+		if(writeOffset + HEADER + length > segmentSize){
+			try{
+				Segment last = segments.get(segments.size()-1);
+				segments.add(segments.size(), openSegment(last.index + 1));
+			}
+			catch(IOException ex){
+				throw new UncheckedIOException(ex);
+			}
+			writeOffset = 0;
+		}
+		MappedByteBuffer buffer = segments.get(segments.size()-1).buffer;
+		int end = writeOffset + HEADER + length;
+		buffer.limit(end).position(writeOffset + HEADER);
+		try{
+			if(bytes != null){
+				buffer.put(bytes);
+			}
+			else{
+				serializer.write(e, buffer);
+			}
+			if(buffer.position() != end){
+				//The header is still 0, so the partial bytes are not a record. A later record that ends inside them
+				//writes a terminator first, so they are never read as a header either.
+				throw new IllegalStateException("Serializer wrote " + (buffer.position() - writeOffset - HEADER)
+						+ " bytes but sizeOf returned " + length);
+			}
+		}
+		finally{
+			buffer.limit(buffer.capacity());
+		}
+		if(end + HEADER <= segmentSize){
+			buffer.putInt(end, 0); //terminator, in case a failed or torn write left bytes where the next header goes
+		}
+		buffer.putInt(writeOffset, length + 1); //written last, so the record only counts once its bytes are in place
+		writeOffset += HEADER + length;
+		count++;
+		modCount++;
+		//Runs in O(b) time for a record of b bytes: a copy into the page cache, with no system call unless a segment
+		//is started.
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty), and moves the read position in the
+	 * checkpoint past it.
+	 * @return the first element of the queue
+	 */
+	public E dequeue(){
+		checkOpen();
+		if(isEmpty()){
+			return null;
+		}
+		skipToData();
+		MappedByteBuffer buffer = segments.get(0).buffer;
+		E temp = decode(buffer, readOffset);
+		readOffset += HEADER + buffer.getInt(readOffset) - 1;
+		count--;
+		modCount++;
+		saveCheckpoint();
+		return temp;
+		//Runs in O(b) time for a record of b bytes.
+	}
+
+	/**
+	 * Forces the written records and the read position to the disk, then deletes the segment files that have been
+	 * read to the end. After sync returns, everything enqueued and dequeued so far survives a machine crash.
+	 * @throws UncheckedIOException if a consumed segment file cannot be deleted.
+	 */
+	public void sync(){
+		checkOpen();
+		for(Segment segment:segments){
+			segment.buffer.force();
+		}
+		checkpoint.force();
+		try{
+			while(!consumed.isEmpty()){
+				Files.deleteIfExists(consumed.get(consumed.size()-1));
+				consumed.remove(consumed.size()-1);
+			}
+		}
+		catch(IOException ex){
+			throw new UncheckedIOException(ex);
+		}
+		//Runs in time proportional to the pages written since the last sync.
+	}
+
+	/**
+	 * Syncs the queue and releases it. The queue cannot be used afterwards, but can be opened again from the same
+	 * directory.
+	 */
+	public void close(){
+		if(closed){
+			return;
+		}
+		sync();
+		closed = true;
+		segments.removeRange(0, segments.size()); //the mappings are released once they are garbage collected
+	}
+
+	/**
+	 * Returns the number of segment files in use.
+	 * @return the number of segments from the reader's to the writer's.
+	 */
+	public int segmentCount(){
+		return segments.size();
+	}
+
+	/**
+	 * Returns an iterator over the elements from the front to the back, without removing them. Each element is
+	 * decoded from its record as the iterator reaches it.
+	 * @return an iterator that throws ConcurrentModificationException if the queue changes while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		checkOpen();
+		return new Iterator<E>(){
+			private int segment = 0; //position in segments
+			private int offset = readOffset;
+			private long remaining = count;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return remaining > 0;
+			}
+
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(remaining == 0){
+					throw new NoSuchElementException();
+				}
+				while(endOfData(segments.get(segment).buffer, offset)){
+					segment++;
+					offset = 0;
+				}
+				MappedByteBuffer buffer = segments.get(segment).buffer;
+				E e = decode(buffer, offset);
+				offset += HEADER + buffer.getInt(offset) - 1;
+				remaining--;
+				return e;
+			}
+		};
+	}
+
+	//Opens the segments from the checkpoint onwards and scans their records to find the write position and count.
+	private void recover() throws IOException{
+		AArrayList<Integer> found = new AArrayList<Integer>();
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)){
+			for(Path file:files){
+				String name = file.getFileName().toString();
+				found.add(found.size(), Integer.parseInt(name.substring(0, name.length() - SUFFIX.length())));
+			}
+		}
+		found.sort(null);
+		long saved = checkpoint.getLong(0);
+		int readSegment = (int) (saved >>> 32);
+		readOffset = (int) saved;
+		if(found.isEmpty() || readSegment < found.get(0) || readSegment > found.get(found.size()-1)){
+			//No checkpoint yet, or it points at a segment that has already been deleted: start at the oldest one.
+			readSegment = found.isEmpty() ? 0 : found.get(0);
+			readOffset = 0;
+		}
+		for(int k=0;k<found.size();k++){
+			int index = found.get(k);
+			if(index < readSegment){
+				Files.deleteIfExists(segmentPath(index)); //read to the end before the last run stopped
+			}
+			else{
+				segments.add(segments.size(), openSegment(index));
+			}
+		}
+		if(segments.isEmpty()){
+			segments.add(0, openSegment(readSegment));
+		}
+		saveCheckpoint();
+		int offset = readOffset;
+		for(int s=0;s<segments.size();s++){
+			MappedByteBuffer buffer = segments.get(s).buffer;
+			if(s > 0){
+				offset = 0;
+			}
+			while(!endOfData(buffer, offset)){
+				offset += HEADER + buffer.getInt(offset) - 1;
+				count++;
+			}
+		}
+		writeOffset = offset;
+		//Runs in O(r) time for the r records after the checkpoint.
+	}
+
+	//Moves the read position to the next segment while the current one has no more records, queueing the finished
+	//segment for deletion. Assumes the queue is not empty.
+	private void skipToData(){
+		while(endOfData(segments.get(0).buffer, readOffset)){
+			consumed.add(consumed.size(), segments.remove(0).path);
+			readOffset = 0;
+			saveCheckpoint();
+		}
+	}
+
+	//Returns whether there is no record at the offset: either a zero header or no room left for one.
+	private boolean endOfData(MappedByteBuffer buffer, int offset){
+		return offset + HEADER > segmentSize || buffer.getInt(offset) == 0;
+	}
+
+	//Decodes the record at the offset.
+	private E decode(MappedByteBuffer buffer, int offset){
+		int length = buffer.getInt(offset) - 1;
+		buffer.limit(offset + HEADER + length).position(offset + HEADER);
+		try{
+			return serializer.read(buffer);
+		}
+		finally{
+			buffer.limit(buffer.capacity());
+		}
+	}
+
+	//Stores the read position in the mapped checkpoint with a single 8-byte write.
+	private void saveCheckpoint(){
+		checkpoint.putLong(0, ((long) segments.get(0).index << 32) | readOffset);
+	}
+
+	private Segment openSegment(int index) throws IOException{
+		Path path = segmentPath(index);
+		return new Segment(index, path, map(path, segmentSize));
+	}
+
+	private Path segmentPath(int index){
+		return directory.resolve(String.format("%010d", index) + SUFFIX);
+	}
+
+	//Maps the first size bytes of a file, creating the file (zero-filled) if it does not exist.
+	private static MappedByteBuffer map(Path path, int size) throws IOException{
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, size); //the mapping stays valid after the channel is closed
+		}
+	}
+
+	private void checkOpen(){
+		if(closed){
+			throw new IllegalStateException("Queue is closed");
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(E element:this){
+			str.append(element + " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
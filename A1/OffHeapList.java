@@ -0,0 +1,318 @@
+package eecs2011;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * List of fixed-width records stored outside the Java heap. Each element is encoded by a RecordCodec into the same
+ * number of bytes and kept in direct ByteBuffer chunks, laid out like BigArrayList's segments: a power of two number
+ * of records per chunk, so index i is in chunk i >>> shift at record i & mask. The heap only holds the list and one
+ * small buffer object per chunk, however many records there are, so the garbage collector has nothing to mark as the
+ * data grows. get decodes a new object on every call; a Record cursor reads and writes individual fields in place
+ * without creating any object per element.
+ */
+public class OffHeapList<E> implements List<E> {
+	public static final int DEFAULT_CHUNK_BYTES=1 << 20;
+
+	/** Converts elements to and from fixed-width records. */
+	public interface RecordCodec<E>{
+		/** Returns the number of bytes of every record. */
+		public int width();
+
+		/** Writes e as the record starting at the offset, using absolute puts. */
+		public void encode(E e, ByteBuffer buffer, int offset);
+
+		/** Reads the record starting at the offset, using absolute gets. */
+		public E decode(ByteBuffer buffer, int offset);
+	}
+
+	private final RecordCodec<E> codec;
+	private final int width; //bytes per record
+	private final int shift; //each chunk holds 2^shift records
+	private final int mask;
+	private ByteBuffer[] chunks = new ByteBuffer[1];
+	private int chunkCount=0; //number of chunks allocated so far
+	private int size=0;
+
+	//Constructors
+	public OffHeapList(RecordCodec<E> codec){
+		this(codec, DEFAULT_CHUNK_BYTES);
+	}
+
+	/**
+	 * Creates an empty list.
+	 * @param codec converts elements to and from records.
+	 * @param chunkBytes the approximate size of each chunk; it is rounded down to a power of two number of records.
+	 */
+	public OffHeapList(RecordCodec<E> codec, int chunkBytes){
+		int width = codec.width();
+		if(width < 1 || width > chunkBytes){
+			throw new IllegalArgumentException("Illegal record width: " + width);
+		}
+		this.codec = codec;
+		this.width = width;
+		this.shift = 31 - Integer.numberOfLeadingZeros(chunkBytes / width);
+		this.mask = (1 << shift) - 1;
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element e to be at index I, shifting all records after this. Each chunk after i is shifted with
+	 * one block move, and its last record is carried into the first slot of the next chunk.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		if(size == Integer.MAX_VALUE){
+			throw new IllegalStateException("Cannot add element. List is full");
+		}
+		ensureCapacity(size+1);
+		int first = i >>> shift;
+		int last = size >>> shift; //chunk that receives the new last record
+		for(int s=last;s>first;s--){
+			int end = (s == last) ? size & mask : mask; //last occupied slot once the shift is done
+			chunks[s].put(width, chunks[s], 0, end*width);
+			chunks[s].put(0, chunks[s-1], mask*width, width);
+		}
+		int off = i & mask;
+		int end = (first == last) ? size & mask : mask;
+		chunks[first].put((off+1)*width, chunks[first], off*width, (end-off)*width);
+		codec.encode(e, chunks[first], off*width);
+		size++;
+		//Runs in O(n-i) time, as one block move per chunk. Appending runs in O(1) time.
+	}
+
+	/**
+	 * Appends an element to the end of the list.
+	 * @param e the element being appended.
+	 */
+	public void add(E e){
+		add(size, e);
+	}
+
+	/**
+	 * Returns the element at index I, decoded from its record.
+	 * @param i the index of the list.
+	 * @return a new object holding the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E get(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		return codec.decode(chunks[i >>> shift], (i & mask)*width);
+		//Runs in O(1) time, plus the cost of decoding.
+	}
+
+	/**
+	 * Removes and returns the element at index I, shifting the records after this.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E remove(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int first = i >>> shift;
+		int last = (size-1) >>> shift;
+		int off = i & mask;
+		E temp = codec.decode(chunks[first], off*width);
+		int end = (first == last) ? (size-1) & mask : mask;
+		chunks[first].put(off*width, chunks[first], (off+1)*width, (end-off)*width);
+		for(int s=first+1;s<=last;s++){
+			chunks[s-1].put(mask*width, chunks[s], 0, width); //the first record of chunk s moves back into chunk s-1
+			end = (s == last) ? (size-1) & mask : mask;
+			chunks[s].put(0, chunks[s], width, end*width);
+		}
+		size--; //there is no reference to clear, the stale bytes are simply overwritten later
+		return temp;
+		//Runs in O(n-i) time.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		ByteBuffer chunk = chunks[i >>> shift];
+		int offset = (i & mask)*width;
+		E temp = codec.decode(chunk, offset);
+		codec.encode(e, chunk, offset);
+		return temp;
+		//Runs in O(1) time, plus the cost of decoding and encoding.
+	}
+
+	/**
+	 * Removes every element and releases the chunks, so their native memory is freed once they are garbage collected.
+	 */
+	public void clear(){
+		chunks = new ByteBuffer[1];
+		chunkCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * Returns a new cursor for reading and writing the fields of records in place. It starts at index 0; move it with
+	 * moveTo. One cursor can visit any number of records, so a scan creates no objects.
+	 * @return a cursor over this list.
+	 */
+	public Record record(){
+		return new Record();
+	}
+
+	/**
+	 * Returns the width of every record.
+	 * @return the number of bytes per element.
+	 */
+	public int width(){
+		return width;
+	}
+
+	/**
+	 * Flyweight view of one record of the list. The field accessors take the byte offset of the field inside the
+	 * record, the same offsets the codec uses, and read or write the chunk directly.
+	 */
+	public final class Record{
+		private ByteBuffer chunk;
+		private int base; //offset of the current record in chunk
+		private int index = -1;
+
+		private Record(){}
+
+		/**
+		 * Moves the cursor to the record at index I.
+		 * @param i the index of the list.
+		 * @return this cursor.
+		 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+		 */
+		public Record moveTo(int i) throws IndexOutOfBoundsException{
+			checkIndex(i,size);
+			chunk = chunks[i >>> shift];
+			base = (i & mask)*width;
+			index = i;
+			return this;
+			//Runs in O(1) time.
+		}
+
+		/** Returns the index the cursor is at. */
+		public int index(){
+			return index;
+		}
+
+		/** Decodes the whole record into a new object. */
+		public E get(){
+			return codec.decode(chunk, base);
+		}
+
+		public byte getByte(int field){
+			return chunk.get(base + checkField(field, Byte.BYTES));
+		}
+
+		public short getShort(int field){
+			return chunk.getShort(base + checkField(field, Short.BYTES));
+		}
+
+		public int getInt(int field){
+			return chunk.getInt(base + checkField(field, Integer.BYTES));
+		}
+
+		public long getLong(int field){
+			return chunk.getLong(base + checkField(field, Long.BYTES));
+		}
+
+		public float getFloat(int field){
+			return chunk.getFloat(base + checkField(field, Float.BYTES));
+		}
+
+		public double getDouble(int field){
+			return chunk.getDouble(base + checkField(field, Double.BYTES));
+		}
+
+		public void setByte(int field, byte v){
+			chunk.put(base + checkField(field, Byte.BYTES), v);
+		}
+
+		public void setShort(int field, short v){
+			chunk.putShort(base + checkField(field, Short.BYTES), v);
+		}
+
+		public void setInt(int field, int v){
+			chunk.putInt(base + checkField(field, Integer.BYTES), v);
+		}
+
+		public void setLong(int field, long v){
+			chunk.putLong(base + checkField(field, Long.BYTES), v);
+		}
+
+		public void setFloat(int field, float v){
+			chunk.putFloat(base + checkField(field, Float.BYTES), v);
+		}
+
+		public void setDouble(int field, double v){
+			chunk.putDouble(base + checkField(field, Double.BYTES), v);
+		}
+
+		//Throws unless the cursor is on a record and the field of the given size lies inside it.
+		private int checkField(int field, int bytes){
+			if(chunk == null){
+				throw new IllegalStateException("The cursor is not on a record");
+			}
+			if(field < 0 || field > width - bytes){
+				throw new IndexOutOfBoundsException("Illegal field offset: " + field);
+			}
+			return field;
+		}
+	}
+
+	//Allocates chunks until the list can hold the given number of records.
+	private void ensureCapacity(int capacity){
+		int needed = (int) (((long) capacity + mask) >>> shift);
+		if(needed > chunks.length){
+			chunks = Arrays.copyOf(chunks, Math.max(needed, 2*chunks.length)); //only copies references
+		}
+		while(chunkCount < needed){
+			chunks[chunkCount++] = ByteBuffer.allocateDirect((mask+1)*width).order(ByteOrder.nativeOrder());
+		}
+		//Runs in O(1) amortized time; the native memory of a new chunk is zeroed by allocateDirect.
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(int k=0;k<size;k++){
+			str.append(get(k)+ " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
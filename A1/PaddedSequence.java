@@ -0,0 +1,70 @@
+package eecs2011;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+//Padding placed before the value. HotSpot lays out superclass fields before subclass fields, so the value always
+//comes after these 56 bytes.
+abstract class SequenceLeftPad{
+	long p01, p02, p03, p04, p05, p06, p07;
+}
+
+//The value itself, plus a plain field that only the thread owning this sequence touches.
+abstract class SequenceValue extends SequenceLeftPad{
+	volatile long value;
+	long cache; //for the owning thread only, e.g. its last read of the other side's sequence
+}
+
+/**
+ * A long counter padded on both sides so it has a cache line to itself. When two threads each update their own
+ * sequence, such as the head and tail of a concurrent queue, the writes do not keep invalidating each other's
+ * cache line (false sharing). Besides plain volatile reads and writes it offers the cheaper acquire/release modes
+ * and compare-and-set, through a VarHandle.
+ */
+final class PaddedSequence extends SequenceValue{
+	long p11, p12, p13, p14, p15, p16, p17; //padding after the value
+
+	private static final VarHandle VALUE;
+	static{
+		try{
+			VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+		}
+		catch(ReflectiveOperationException e){
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	PaddedSequence(long initial){
+		VALUE.setRelease(this, initial);
+	}
+
+	/** Volatile read. */
+	long get(){
+		return value;
+	}
+
+	/** Plain read, for the thread that owns the sequence and is the only one writing it. */
+	long getPlain(){
+		return (long) VALUE.get(this);
+	}
+
+	/** Acquire read: everything written before the matching release write is visible afterwards. */
+	long getAcquire(){
+		return (long) VALUE.getAcquire(this);
+	}
+
+	/** Volatile write. */
+	void set(long v){
+		value = v;
+	}
+
+	/** Release write (lazySet): publishes the writes made before it, without the cost of a full fence. */
+	void setRelease(long v){
+		VALUE.setRelease(this, v);
+	}
+
+	/** Atomically sets the value to update if it currently equals expect. */
+	boolean compareAndSet(long expect, long update){
+		return VALUE.compareAndSet(this, expect, update);
+	}
+}
@@ -1,6 +1,14 @@
 package eecs2011;
 
-public interface Queue<E> {
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public interface Queue<E> extends Iterable<E> {
 	/** Returns the number of elements in the queue */
 	public int size();
 	
@@ -8,11 +16,66 @@ public interface Queue<E> {
 	public boolean isEmpty();
 	
 	/** Returns the element at the front without removing it (null if empty) */
-	public Object front();
+	public E front();
 	
 	/** Inserts an element at the end of the queue */
 	public void enqueue(E e);
 	
 	/** Removes and returns the element at the front of the queue (null if empty) */
-	public Object dequeue();
+	public E dequeue();
+	
+	/** Inserts the elements of the array at the end of the queue, in order. This default enqueues them one by one. */
+	public default void enqueueAll(E[] elements){
+		for(E e:elements){
+			enqueue(e);
+		}
+	}
+	
+	/** Inserts the elements of the list at the end of the queue, in order. This default enqueues them one by one. */
+	public default void enqueueAll(List<? extends E> elements){
+		for(E e:elements){
+			enqueue(e);
+		}
+	}
+	
+	/**
+	 * Removes up to maxElements elements from the front and passes them to the consumer in order, returning how many
+	 * were removed. This default dequeues them one by one.
+	 */
+	public default int drainTo(Consumer<? super E> consumer, int maxElements){
+		int count = 0;
+		while(count < maxElements && !isEmpty()){
+			consumer.accept(dequeue());
+			count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Removes up to maxElements elements from the front and stores them in target starting at offset, returning how
+	 * many were removed.
+	 */
+	public default int drainTo(E[] target, int offset, int maxElements){
+		Objects.checkFromIndexSize(offset, maxElements, target.length);
+		int[] next = { offset };
+		return drainTo(e -> target[next[0]++] = e, maxElements);
+	}
+	
+	/** Returns an iterator over the elements from the front to the back, without removing them */
+	public Iterator<E> iterator();
+	
+	/** Returns a spliterator over the elements from the front to the back */
+	public default Spliterator<E> spliterator(){
+		return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+	}
+	
+	/** Returns a sequential stream over the elements from the front to the back */
+	public default Stream<E> stream(){
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/** Returns a possibly parallel stream over the elements from the front to the back */
+	public default Stream<E> parallelStream(){
+		return StreamSupport.stream(spliterator(), true);
+	}
 }
\ No newline at end of file
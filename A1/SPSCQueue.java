@@ -0,0 +1,185 @@
+package eecs2011;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lock-free queue for exactly one producer thread and one consumer thread. It uses the same power of two ring as
+ * AQueue, but instead of a shared size it keeps two ever-increasing sequences: tail, written only by the producer,
+ * and head, written only by the consumer. Each sits on its own padded cache line. The producer publishes an element
+ * with a release write of tail and the consumer frees a slot with a release write of head, so no locks or CAS are
+ * needed. Each side also caches the last value it read of the other side's sequence, and only reads the shared
+ * one again when the cached value says the queue looks full (producer) or empty (consumer). Most operations
+ * therefore touch no cache line the other thread is writing.
+ * Calling enqueue from two threads, or dequeue from two threads, is not safe.
+ */
+public class SPSCQueue<E> implements Queue<E> {
+	public static final int DEFAULT_CAPACITY=1024;
+	private final E[] data; //its length is a power of two
+	private final int mask;
+	private final PaddedSequence head = new PaddedSequence(0); //next slot to dequeue; head.cache is the consumer's copy of tail
+	private final PaddedSequence tail = new PaddedSequence(0); //next slot to enqueue; tail.cache is the producer's copy of head
+
+	//Constructors
+	public SPSCQueue(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a queue holding at least the given number of elements. The capacity is rounded up to a power of two.
+	 * @param capacity the minimum capacity.
+	 */
+	@SuppressWarnings("unchecked")
+	public SPSCQueue(int capacity){
+		if(capacity < 1 || capacity > 1 << 30){
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		int length = Integer.highestOneBit(capacity);
+		if(length < capacity){
+			length <<= 1;
+		}
+		data = (E[]) new Object[length];
+		mask = length - 1;
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the queue. Since the other thread may be changing it, the result is only
+	 * a snapshot.
+	 * @return the number of elements, between 0 and the capacity.
+	 */
+	public int size(){
+		long h = head.get();
+		long t = tail.get();
+		return (int) Math.max(0, Math.min(t - h, data.length));
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Tests whether the queue is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return tail.get() == head.get();
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns, but does not remove, the first element of the queue (null if empty). Consumer thread only.
+	 * @return first element
+	 */
+	public E front(){
+		long h = head.getPlain();
+		if(h >= head.cache && h >= (head.cache = tail.getAcquire())){
+			return null;
+		}
+		return data[(int) h & mask];
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue. Producer thread only.
+	 * @param e the object to be inserted in the back.
+	 * @throws IllegalStateException if the queue is full.
+	 * @throws NullPointerException if e is null.
+	 */
+	public void enqueue(E e){
+		if(!offer(e)){
+			throw new IllegalStateException("Cannot add element. Queue is full");
+		}
+	}
+
+	/**
+	 * Inserts an element at the rear of the queue if there is room. Producer thread only.
+	 * @param e the object to be inserted in the back.
+	 * @return true if e was added, false if the queue is full.
+	 * @throws NullPointerException if e is null, since null is what dequeue returns for an empty queue.
+	 */
+	public boolean offer(E e){
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+		long t = tail.getPlain(); //only this thread writes tail
+		long wrap = t - data.length; //the slot is free once the consumer has gone past this sequence
+		if(tail.cache <= wrap){
+			tail.cache = head.getAcquire(); //only now look at the consumer's cache line
+			if(tail.cache <= wrap){
+				return false;
+			}
+		}
+		data[(int) t & mask] = e;
+		tail.setRelease(t + 1); //publishes the element to the consumer
+		return true;
+		//Runs in O(1) time with no locks and no CAS.
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty). Consumer thread only.
+	 * @return the first element of the queue
+	 */
+	public E dequeue(){
+		return poll();
+	}
+
+	/**
+	 * Removes and returns the first element of the queue (null if empty). Consumer thread only.
+	 * @return the first element of the queue, or null if there is none.
+	 */
+	public E poll(){
+		long h = head.getPlain(); //only this thread writes head
+		if(h >= head.cache){
+			head.cache = tail.getAcquire(); //only now look at the producer's cache line
+			if(h >= head.cache){
+				return null;
+			}
+		}
+		int slot = (int) h & mask;
+		E temp = data[slot];
+		data[slot] = null;
+		head.setRelease(h + 1); //hands the slot back to the producer
+		return temp;
+		//Runs in O(1) time with no locks and no CAS.
+	}
+
+	/**
+	 * Returns the capacity of the queue.
+	 * @return the number of elements the queue can hold.
+	 */
+	public int capacity(){
+		return data.length;
+	}
+
+	/**
+	 * Returns an iterator over the elements from the front to the back, without removing them. Meant for the
+	 * consumer thread; it sees the elements that were published when it was created.
+	 * @return an iterator over the elements.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private long cursor = head.getPlain();
+			private final long end = tail.getAcquire();
+
+			public boolean hasNext(){
+				return cursor < end;
+			}
+
+			public E next(){
+				if(cursor >= end){
+					throw new NoSuchElementException();
+				}
+				return data[(int) cursor++ & mask];
+			}
+		};
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(E element:this){
+			str.append(element + " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
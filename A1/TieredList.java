@@ -0,0 +1,222 @@
+package eecs2011;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Tiered vector. The elements are stored in blocks of a fixed power of two size, and each block is a small circular
+ * array with its own front offset (the same trick AQueue uses). A directory array holds the blocks in order.
+ * Every block except the last one is full, so the block holding index i is simply i / blockSize, which keeps get and
+ * set O(1). Inserting or removing in the middle only shifts inside one block, and then moves one element across
+ * each following block boundary in O(1) by rotating the circular blocks. The block size is kept close to sqrt(n),
+ * so both parts cost O(sqrt n), and no single array ever has to hold all the elements.
+ */
+public class TieredList<E> implements List<E> {
+	public static final int MIN_BLOCK_SHIFT=4; //smallest block size is 2^4 = 16
+	private int shift; //log2 of the block size
+	private E[][] blocks; //the directory, with room for blockSize/2+1 blocks
+	private int[] offsets; //index of the first element inside each circular block
+	private int blockCount=0; //number of blocks in use
+	private int size=0;
+	private int modCount=0; //number of structural changes, used to make the iterators fail fast
+
+	//Constructor
+	public TieredList(){
+		rebuild(MIN_BLOCK_SHIFT);
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element e to be at index I, shifting all elements after this.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		int mask = (1 << shift) - 1;
+		if(size == blockCount << shift){ //every block is full
+			if(blockCount == 1 << (shift-1)){ //at most blockSize/2 blocks, since moving across a block costs more than shifting inside one
+				rebuild(shift+1); //too many blocks for this block size
+				mask = (1 << shift) - 1;
+			}
+			blocks[blockCount] = newBlock(1 << shift);
+			offsets[blockCount] = 0;
+			blockCount++;
+		}
+		int b = i >>> shift;
+		for(int c=blockCount-1;c>b;c--){
+			//The last element of block c-1 becomes the first element of block c. Both are circular, so this is
+			//done by moving the offsets instead of shifting.
+			int last = (offsets[c-1] + mask) & mask;
+			offsets[c] = (offsets[c] - 1) & mask;
+			blocks[c][offsets[c]] = blocks[c-1][last];
+			blocks[c-1][last] = null;
+		}
+		E[] block = blocks[b];
+		int count = Math.min(size - (b << shift), mask); //block b has a free slot at its end now
+		for(int k=count;k>(i & mask);k--){
+			block[(offsets[b] + k) & mask] = block[(offsets[b] + k - 1) & mask];
+		}
+		block[(offsets[b] + i) & mask] = e;
+		size++;
+		modCount++;
+		//Runs in O(sqrt n) time: O(blockSize) to shift inside block b and O(1) for each of the O(n/blockSize)
+		//following blocks. Rebuilding with a bigger block size takes O(n) but only happens after the list doubles.
+	}
+
+	/**
+	 * Returns the element at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E get(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int b = i >>> shift;
+		return blocks[b][(offsets[b] + i) & ((1 << shift) - 1)];
+		//Runs in O(1) time since the block and the slot inside it are found with a shift and a mask.
+	}
+
+	/**
+	 * Removes and returns the element at index I, shifting the elements after this.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E remove(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int mask = (1 << shift) - 1;
+		int b = i >>> shift;
+		E[] block = blocks[b];
+		int count = Math.min(size - (b << shift), mask+1);
+		E temp = block[(offsets[b] + i) & mask];
+		for(int k=i & mask;k<count-1;k++){
+			block[(offsets[b] + k) & mask] = block[(offsets[b] + k + 1) & mask];
+		}
+		block[(offsets[b] + count - 1) & mask] = null;
+		for(int c=b+1;c<blockCount;c++){
+			//The first element of block c becomes the last element of block c-1.
+			blocks[c-1][(offsets[c-1] + mask) & mask] = blocks[c][offsets[c]];
+			blocks[c][offsets[c]] = null;
+			offsets[c] = (offsets[c] + 1) & mask;
+		}
+		size--;
+		modCount++;
+		if(size == (blockCount-1) << shift){
+			blocks[--blockCount] = null; //the last block is empty
+		}
+		if(shift > MIN_BLOCK_SHIFT && blockCount < (1 << shift) / 16){
+			rebuild(shift-1); //too few blocks for this block size
+		}
+		return temp;
+		//Runs in O(sqrt n) time for the same reason as add.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		int b = i >>> shift;
+		int p = (offsets[b] + i) & ((1 << shift) - 1);
+		E temp = blocks[b][p];
+		blocks[b][p] = e;
+		return temp;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns an iterator over the elements in order. It finds the block and slot with a shift and a mask, like get.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private int cursor = 0;
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return cursor < size;
+			}
+
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(cursor >= size){
+					throw new NoSuchElementException();
+				}
+				int b = cursor >>> shift;
+				return blocks[b][(offsets[b] + cursor++) & ((1 << shift) - 1)];
+			}
+		};
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private E[] newBlock(int length){
+		return (E[]) new Object[length];
+	}
+
+	//Copies every element into blocks of size 2^newShift, unwrapping the circular blocks so every offset is 0.
+	//Takes O(n) time.
+	@SuppressWarnings("unchecked")
+	private void rebuild(int newShift){
+		int newSize = 1 << newShift;
+		E[][] newBlocks = (E[][]) new Object[newSize/2+1][];
+		int newCount = (size + newSize - 1) >>> newShift;
+		for(int c=0;c<newCount;c++){
+			newBlocks[c] = newBlock(newSize);
+		}
+		int mask = (1 << shift) - 1;
+		for(int i=0;i<size;i++){
+			int b = i >>> shift;
+			newBlocks[i >>> newShift][i & (newSize-1)] = blocks[b][(offsets[b] + i) & mask];
+		}
+		blocks = newBlocks;
+		offsets = new int[newSize/2+1];
+		blockCount = newCount;
+		shift = newShift;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(int k=0;k<size;k++){
+			str.append(get(k)+ " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
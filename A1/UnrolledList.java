@@ -0,0 +1,299 @@
+package eecs2011;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Unrolled linked list. Each node holds a small array of up to nodeCapacity elements instead of a single element,
+ * so there is one node allocation (and one pointer to follow) for every block of elements rather than for every
+ * element. Nodes are kept at least half full: a full node is split in two when an element is added to it, and a
+ * node that falls below half is merged with, or borrows from, its neighbour.
+ */
+public class UnrolledList<E> implements List<E> {
+	public static final int DEFAULT_NODE_CAPACITY=32;
+
+	//Node class holding a block of elements.
+	private static class Node<E>{
+		private Object[] elements; //elements[0, count) are in use
+		private int count = 0;
+		private Node<E> next;
+		private Node<E> prev;
+
+		public Node(int capacity){
+			this.elements = new Object[capacity];
+		}
+	}
+
+	private final int nodeCapacity;
+	private Node<E> head = null;
+	private Node<E> tail = null;
+	private int size = 0;
+	private int modCount = 0; //number of structural changes, used to make the iterators fail fast
+	private int offset; //set by locate to the position of the index inside the node it returns
+
+	//Constructors
+	public UnrolledList(){
+		this(DEFAULT_NODE_CAPACITY);
+	}
+
+	public UnrolledList(int nodeCapacity){
+		if(nodeCapacity < 4){
+			throw new IllegalArgumentException("Node capacity must be at least 4");
+		}
+		this.nodeCapacity = nodeCapacity;
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in this list
+	 * @return size
+	 */
+	public int size(){
+		return this.size;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Returns whether the list is empty
+	 * @return size==0
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element e to be at index I, shifting the elements after it inside its node. A full node is split
+	 * in two first.
+	 * @param i the index of the list.
+	 * @param e the element being inserted.
+	 * @throws IndexOutOfBoundsException if i < 0 or i > size.
+	 */
+	public void add(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size+1);
+		Node<E> node;
+		if(head == null){
+			head = tail = new Node<E>(nodeCapacity);
+			node = head;
+			offset = 0;
+		}
+		else if(i == size){
+			node = tail;
+			offset = tail.count;
+		}
+		else{
+			node = locate(i);
+		}
+		if(node.count == nodeCapacity){
+			//Appending past a full tail starts a fresh node instead of leaving two half empty ones behind.
+			int keep = (node == tail && offset == node.count) ? node.count : node.count/2;
+			Node<E> half = split(node, keep);
+			if(offset >= keep){
+				offset -= keep;
+				node = half;
+			}
+		}
+		System.arraycopy(node.elements, offset, node.elements, offset+1, node.count-offset);
+		node.elements[offset] = e;
+		node.count++;
+		size++;
+		modCount++;
+		//Runs in O(n/B + B) time for nodes of capacity B: walking to the node skips B elements per step, and the
+		//shift inside the node moves at most B elements.
+	}
+
+	/**
+	 * Returns the element at index I, without removing it.
+	 * @param i the index of the list.
+	 * @return the element at the provided index
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		Node<E> node = locate(i);
+		return (E) node.elements[offset];
+		//Runs in O(n/B) time, B times fewer steps than LArrayList.
+	}
+
+	/**
+	 * Removes and returns the element at index I. If its node drops below half full it is merged with, or borrows
+	 * from, a neighbour.
+	 * @param i the index from where the value is to be removed.
+	 * @return the removed value
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E remove(int i) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		Node<E> node = locate(i);
+		E temp = (E) node.elements[offset];
+		System.arraycopy(node.elements, offset+1, node.elements, offset, node.count-offset-1);
+		node.elements[--node.count] = null;
+		if(node.count < nodeCapacity/2){
+			if(node.next != null){
+				rebalance(node, node.next);
+			}
+			else if(node.prev != null){
+				rebalance(node.prev, node);
+			}
+			else if(node.count == 0){
+				head = tail = null; //the list is now empty
+			}
+		}
+		size--;
+		modCount++;
+		return temp;
+		//Runs in O(n/B + B) time for the same reason as add.
+	}
+
+	/**
+	 * Replaces the element at index I with e, returning the previous element at i.
+	 * @param i the index of the list.
+	 * @param e the value to be replaced.
+	 * @return the previous value.
+	 * @throws IndexOutOfBoundsException if i < 0 or i >= size
+	 */
+	@SuppressWarnings("unchecked")
+	public E set(int i, E e) throws IndexOutOfBoundsException{
+		checkIndex(i,size);
+		Node<E> node = locate(i);
+		E temp = (E) node.elements[offset];
+		node.elements[offset] = e;
+		return temp;
+		//Runs in O(n/B) time.
+	}
+
+	/**
+	 * Returns an iterator over the elements in order. It walks each node's array, so a full pass follows only n/B
+	 * references.
+	 * @return an iterator that throws ConcurrentModificationException if the list is structurally modified
+	 * while it is in use.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private Node<E> node = head;
+			private int k = 0; //position inside node
+			private final int expectedModCount = modCount;
+
+			public boolean hasNext(){
+				return node != null && k < node.count;
+			}
+
+			@SuppressWarnings("unchecked")
+			public E next(){
+				if(modCount != expectedModCount){
+					throw new ConcurrentModificationException();
+				}
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				E e = (E) node.elements[k++];
+				if(k == node.count){
+					node = node.next;
+					k = 0;
+				}
+				return e;
+			}
+		};
+	}
+
+	//Returns the node holding index i, walking from the head or the tail, whichever is closer, and sets offset to
+	//the position of i inside that node. Assumes i is a valid index.
+	private Node<E> locate(int i){
+		Node<E> node;
+		if(i < size/2){
+			node = head;
+			while(i >= node.count){
+				i -= node.count;
+				node = node.next;
+			}
+		}
+		else{
+			node = tail;
+			int start = size - node.count; //index of the node's first element
+			while(i < start){
+				node = node.prev;
+				start -= node.count;
+			}
+			i -= start;
+		}
+		offset = i;
+		return node;
+	}
+
+	//Moves the elements of a node from index keep onwards into a new node linked right after it, and returns the new
+	//node.
+	private Node<E> split(Node<E> node, int keep){
+		Node<E> half = new Node<E>(nodeCapacity);
+		half.count = node.count - keep;
+		System.arraycopy(node.elements, keep, half.elements, 0, half.count);
+		Arrays.fill(node.elements, keep, node.count, null);
+		node.count = keep;
+		half.prev = node;
+		half.next = node.next;
+		if(node.next == null){
+			tail = half;
+		}
+		else{
+			node.next.prev = half;
+		}
+		node.next = half;
+		return half;
+	}
+
+	//Fixes up two adjacent nodes after one of them became less than half full. If their elements fit in one node,
+	//b is merged into a and unlinked. Otherwise elements are moved across so both end up about equally full.
+	private void rebalance(Node<E> a, Node<E> b){
+		int total = a.count + b.count;
+		if(total <= nodeCapacity){
+			System.arraycopy(b.elements, 0, a.elements, a.count, b.count);
+			a.count = total;
+			a.next = b.next;
+			if(b.next == null){
+				tail = a;
+			}
+			else{
+				b.next.prev = a;
+			}
+		}
+		else if(a.count < total/2){
+			int k = total/2 - a.count; //moves the first k elements of b to the end of a
+			System.arraycopy(b.elements, 0, a.elements, a.count, k);
+			System.arraycopy(b.elements, k, b.elements, 0, b.count-k);
+			Arrays.fill(b.elements, b.count-k, b.count, null);
+			a.count += k;
+			b.count -= k;
+		}
+		else{
+			int k = a.count - total/2; //moves the last k elements of a to the front of b
+			System.arraycopy(b.elements, 0, b.elements, k, b.count);
+			System.arraycopy(a.elements, a.count-k, b.elements, 0, k);
+			Arrays.fill(a.elements, a.count-k, a.count, null);
+			a.count -= k;
+			b.count += k;
+		}
+	}
+
+	//Throws an exception if the index isn't within the bounds.
+	private void checkIndex(int i, int n) throws IndexOutOfBoundsException{
+		if(i< 0 || i>=n){
+			throw new IndexOutOfBoundsException("Illegal index provided: "+ i);
+		}
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{");
+		for(Node<E> node=head;node!=null;node=node.next){
+			for(int k=0;k<node.count;k++){
+				str.append(" "+node.elements[k]);
+			}
+		}
+		str.append(" }");
+		return str.toString();
+	}
+}
@@ -0,0 +1,359 @@
+package eecs2011;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Queue of the most recent values of a stream that keeps rolling aggregates over them. It is an AQueue in GROW mode
+ * whose oldest values are evicted once there are more than maxCount of them, or once they are older than maxAge.
+ * Alongside the ring it keeps a compensated running sum and two monotonic deques: the min deque holds the values that could
+ * still become the minimum (each smaller than every value after it), and likewise for the max. A new value removes
+ * the entries it makes irrelevant from the back of each deque, and an evicted value leaves the front, so min, max,
+ * sum, count and mean are all available in O(1) time, and maintaining them costs O(1) amortized per value,
+ * instead of rescanning the window for every event.
+ * NaN is not allowed, since it has no place in an ordering.
+ */
+public class WindowedQueue extends AQueue<Double> {
+
+	//Deque of (value, sequence number) pairs kept in monotonic order, in a growable power of two ring.
+	private static class MonotonicDeque{
+		private final boolean minimum; //true to keep increasing values (for the minimum), false for the maximum
+		private double[] values = new double[16];
+		private long[] sequences = new long[16];
+		private int head = 0;
+		private int size = 0;
+
+		public MonotonicDeque(boolean minimum){
+			this.minimum = minimum;
+		}
+
+		//Appends a value, first dropping the values at the back that it dominates. O(1) amortized, since every value
+		//is dropped at most once.
+		public void push(double v, long sequence){
+			int mask = values.length - 1;
+			while(size > 0){
+				double back = values[(head + size - 1) & mask];
+				if(minimum ? back < v : back > v){
+					break;
+				}
+				size--;
+			}
+			if(size == values.length){
+				grow();
+				mask = values.length - 1;
+			}
+			int slot = (head + size) & mask;
+			values[slot] = v;
+			sequences[slot] = sequence;
+			size++;
+		}
+
+		//Drops the front entry if it is the value with the given sequence number, which has just left the window.
+		public void expire(long sequence){
+			if(size > 0 && sequences[head] == sequence){
+				head = (head + 1) & (values.length - 1);
+				size--;
+			}
+		}
+
+		public double front(){
+			return (size == 0) ? Double.NaN : values[head];
+		}
+
+		public void clear(){
+			head = 0;
+			size = 0;
+		}
+
+		//Doubles both arrays and unwraps the ring, with two block copies each.
+		private void grow(){
+			double[] biggerValues = new double[2 * values.length];
+			long[] biggerSequences = new long[2 * values.length];
+			int first = values.length - head;
+			System.arraycopy(values, head, biggerValues, 0, first);
+			System.arraycopy(values, 0, biggerValues, first, head);
+			System.arraycopy(sequences, head, biggerSequences, 0, first);
+			System.arraycopy(sequences, 0, biggerSequences, first, head);
+			values = biggerValues;
+			sequences = biggerSequences;
+			head = 0;
+		}
+	}
+
+	private final int maxCount; //most values kept; Integer.MAX_VALUE for a window that is only bounded by time
+	private final long maxAge; //values this old or older are evicted; Long.MAX_VALUE for a count-only window
+	private final LongSupplier clock; //source of timestamps for enqueue, in the same unit as maxAge
+	private final LongRingQueue timestamps; //timestamp of every value in the window, only kept for time windows
+	private final MonotonicDeque mins = new MonotonicDeque(true);
+	private final MonotonicDeque maxs = new MonotonicDeque(false);
+	private long lastTime = Long.MIN_VALUE; //timestamp of the newest value, which later ones may not precede
+	private double sum = 0; //running sum of the window
+	private double compensation = 0; //low-order bits lost by the additions to sum (Neumaier's summation)
+	private long added = 0; //sequence number of the next value
+	private long evicted = 0; //sequence number of the front value
+
+	//Constructors
+	/**
+	 * Creates a window over the last maxCount values.
+	 * @param maxCount the number of values in the window.
+	 */
+	public WindowedQueue(int maxCount){
+		this(maxCount, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * Creates a window over the values enqueued during the last maxAge, measured with System.nanoTime.
+	 * @param maxAge the length of the window.
+	 * @param unit the unit of maxAge.
+	 */
+	public WindowedQueue(long maxAge, TimeUnit unit){
+		this(Integer.MAX_VALUE, unit.toNanos(maxAge), System::nanoTime);
+	}
+
+	/**
+	 * Creates a window bounded by count, by age, or both.
+	 * @param maxCount the most values in the window, or Integer.MAX_VALUE for no bound.
+	 * @param maxAge the age at which values are evicted, in the unit of the clock, or Long.MAX_VALUE for no bound.
+	 * @param clock the source of timestamps for enqueue and for evicting old values; may be null when maxAge is
+	 * Long.MAX_VALUE, or when every value is added with an explicit timestamp and expire is called with one.
+	 */
+	public WindowedQueue(int maxCount, long maxAge, LongSupplier clock){
+		super(Math.min(maxCount, DEFAULT_CAPACITY), Overflow.GROW);
+		if(maxCount < 1){
+			throw new IllegalArgumentException("Illegal window size: " + maxCount);
+		}
+		if(maxAge < 1){
+			throw new IllegalArgumentException("Illegal window age: " + maxAge);
+		}
+		this.maxCount = maxCount;
+		this.maxAge = maxAge;
+		this.clock = clock;
+		this.timestamps = (maxAge == Long.MAX_VALUE) ? null : new LongRingQueue();
+	}
+
+	//Methods
+
+	/**
+	 * Adds a value to the window, timestamped with the clock, and evicts the values that fall out of it.
+	 * @param v the value to add.
+	 * @throws IllegalArgumentException if v is NaN.
+	 */
+	public void enqueueDouble(double v){
+		enqueueDouble(v, (timestamps == null || clock == null) ? 0 : clock.getAsLong());
+	}
+
+	/**
+	 * Adds a value with an explicit timestamp, e.g. the event time, and evicts the values that fall out of the window
+	 * relative to that time. Timestamps must not decrease.
+	 * @param v the value to add.
+	 * @param time the timestamp of the value, in the unit of maxAge.
+	 * @throws IllegalArgumentException if v is NaN or time is earlier than the previous timestamp.
+	 */
+	public void enqueueDouble(double v, long time){
+		if(Double.isNaN(v)){
+			throw new IllegalArgumentException("NaN is not allowed");
+		}
+		if(timestamps != null && time < lastTime){
+			throw new IllegalArgumentException("Timestamps must not decrease");
+		}
+		while(size() >= maxCount){
+			dequeue(); //evicts before adding, so a full window never grows its ring past maxCount
+		}
+		if(timestamps != null){
+			timestamps.enqueueLong(time);
+			lastTime = time;
+		}
+		super.offer(v);
+		accumulate(v);
+		mins.push(v, added);
+		maxs.push(v, added);
+		added++;
+		if(timestamps != null){
+			expire(time);
+		}
+		//Runs in O(1) amortized time.
+	}
+
+	/**
+	 * Evicts the values that are at least maxAge old at the given time.
+	 * @param now the current time, in the unit of maxAge.
+	 */
+	public void expire(long now){
+		if(timestamps == null){
+			return;
+		}
+		while(!isEmpty() && now - timestamps.frontLong() >= maxAge){
+			dequeue();
+		}
+		//Runs in O(k) time for k evicted values.
+	}
+
+	/**
+	 * Returns the smallest value in the window. For a time window the values that have expired by the clock's
+	 * current time are evicted first.
+	 * @return the minimum, or NaN if the window is empty.
+	 */
+	public double min(){
+		expireByClock();
+		return mins.front();
+		//Runs in O(1) time, plus any evictions.
+	}
+
+	/**
+	 * Returns the largest value in the window, evicting expired values first like min.
+	 * @return the maximum, or NaN if the window is empty.
+	 */
+	public double max(){
+		expireByClock();
+		return maxs.front();
+	}
+
+	/**
+	 * Returns the sum of the values in the window, evicting expired values first like min.
+	 * @return the sum, or 0 if the window is empty.
+	 */
+	public double sum(){
+		expireByClock();
+		return sum + compensation;
+	}
+
+	/**
+	 * Returns the number of values in the window, evicting expired values first like min.
+	 * @return the count.
+	 */
+	public int count(){
+		expireByClock();
+		return size();
+	}
+
+	/**
+	 * Returns the mean of the values in the window, evicting expired values first like min.
+	 * @return the mean, or NaN if the window is empty.
+	 */
+	public double mean(){
+		expireByClock();
+		return isEmpty() ? Double.NaN : (sum + compensation) / size();
+	}
+
+	/**
+	 * Adds a value to the window; the same as enqueueDouble.
+	 * @param e the value to add.
+	 * @throws NullPointerException if e is null.
+	 * @throws IllegalArgumentException if e is NaN.
+	 */
+	public void enqueue(Double e){
+		enqueueDouble(e);
+	}
+
+	/**
+	 * Adds a value to the window; the same as enqueueDouble. A window never rejects a value.
+	 * @param e the value to add.
+	 * @return true.
+	 */
+	public boolean offer(Double e){
+		enqueueDouble(e);
+		return true;
+	}
+
+	/**
+	 * Removes and returns the oldest value in the window (null if empty), and updates the aggregates.
+	 * @return the oldest value
+	 */
+	public Double dequeue(){
+		Double e = super.dequeue();
+		if(e != null){
+			mins.expire(evicted);
+			maxs.expire(evicted);
+			evicted++;
+			if(timestamps != null){
+				timestamps.dequeueLong();
+			}
+			if(isEmpty()){
+				sum = 0; //starts the next window from an exact zero
+				compensation = 0;
+			}
+			else{
+				accumulate(-e);
+			}
+		}
+		return e;
+		//Runs in O(1) time.
+	}
+
+	//Adds x to the running sum, keeping the rounding error of the addition in compensation. A window that never
+	//empties adds and subtracts values forever, and with plain additions the error of every step would pile up.
+	private void accumulate(double x){
+		double t = sum + x;
+		if(Math.abs(sum) >= Math.abs(x)){
+			compensation += (sum - t) + x; //the low-order bits of x were lost
+		}
+		else{
+			compensation += (x - t) + sum; //the low-order bits of sum were lost
+		}
+		sum = t;
+	}
+
+	/**
+	 * Adds the values of the array in order. Each value goes through enqueueDouble so the aggregates stay correct,
+	 * rather than AQueue's block copy.
+	 * @param elements the values to add.
+	 */
+	public void enqueueAll(Double[] elements){
+		for(Double e:elements){
+			enqueueDouble(e);
+		}
+	}
+
+	/**
+	 * Adds the values of the list in order, each through enqueueDouble.
+	 * @param elements the values to add.
+	 */
+	public void enqueueAll(List<? extends Double> elements){
+		for(Double e:elements){
+			enqueueDouble(e);
+		}
+	}
+
+	/**
+	 * Removes up to maxElements of the oldest values and passes them to the consumer in order, each through dequeue
+	 * so the aggregates stay correct.
+	 * @param consumer receives the removed values.
+	 * @param maxElements the most values to remove.
+	 * @return the number of values removed.
+	 */
+	public int drainTo(Consumer<? super Double> consumer, int maxElements){
+		int count = 0;
+		while(count < maxElements && !isEmpty()){
+			consumer.accept(dequeue());
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Removes up to maxElements of the oldest values and stores them in target starting at offset, each through
+	 * dequeue so the aggregates stay correct.
+	 * @param target the array receiving the values.
+	 * @param offset the index in target of the first value.
+	 * @param maxElements the most values to remove.
+	 * @return the number of values removed.
+	 * @throws IndexOutOfBoundsException if offset and maxElements do not describe a range of target.
+	 */
+	public int drainTo(Double[] target, int offset, int maxElements){
+		Objects.checkFromIndexSize(offset, maxElements, target.length);
+		int count = 0;
+		while(count < maxElements && !isEmpty()){
+			target[offset + count++] = dequeue();
+		}
+		return count;
+	}
+
+	//Evicts the values that have expired by the clock's current time, for time windows that have a clock.
+	private void expireByClock(){
+		if(timestamps != null && clock != null){
+			expire(clock.getAsLong());
+		}
+	}
+}
@@ -0,0 +1,229 @@
+package eecs2011;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Work-stealing deque (Chase and Lev) used by WorkStealingPool. One thread, the owner, pushes and pops tasks at the
+ * bottom like a stack; any other thread can steal the oldest task from the top. The elements sit in the same kind of
+ * power of two ring as AQueue, indexed by ever-increasing top and bottom counters through a bitmask, and the ring
+ * doubles when it fills up. The owner's push and pop only write bottom, so they need no CAS; a CAS on top is only
+ * needed by thieves, and by pop when it races them for the last element.
+ * As a Queue, enqueue is push (owner only) and dequeue is steal (any thread), so the elements come out in FIFO
+ * order. Null elements are not allowed, since dequeue returns null for an empty deque.
+ */
+public class WorkStealingDeque<E> implements Queue<E> {
+	public static final int DEFAULT_CAPACITY=64;
+	private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+	private volatile Object[] array; //its length is a power of two; replaced by a bigger copy when full
+	private final PaddedSequence top = new PaddedSequence(0); //next element to steal; advanced by CAS
+	private final PaddedSequence bottom = new PaddedSequence(0); //next free slot; written by the owner only
+
+	//Constructors
+	public WorkStealingDeque(){
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a deque with room for at least the given number of elements before it grows.
+	 * @param capacity the starting capacity, rounded up to a power of two.
+	 */
+	public WorkStealingDeque(int capacity){
+		if(capacity < 1 || capacity > 1 << 30){
+			throw new IllegalArgumentException("Illegal capacity: " + capacity);
+		}
+		int length = Integer.highestOneBit(capacity);
+		array = new Object[(length < capacity) ? length << 1 : length];
+	}
+
+	//Methods
+
+	/**
+	 * Returns the number of elements in the deque. Other threads may be stealing, so the result is only a snapshot.
+	 * @return the number of elements.
+	 */
+	public int size(){
+		long t = top.get();
+		long b = bottom.get();
+		return (int) Math.max(0, b - t);
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Tests whether the deque is empty.
+	 * @return a boolean value.
+	 */
+	public boolean isEmpty(){
+		return size() == 0;
+		//Runs in O(1) time.
+	}
+
+	/**
+	 * Inserts an element at the bottom. Owner thread only.
+	 * @param e the element to be pushed.
+	 * @throws NullPointerException if e is null.
+	 */
+	public void push(E e){
+		if(e == null){
+			throw new NullPointerException("Null elements are not allowed");
+		}
+		long b = bottom.getPlain();
+		long t = top.getAcquire();
+		Object[] a = array;
+		if(b - t >= a.length){
+			a = grow(a, t, b);
+		}
+		SLOT.setRelease(a, (int) b & (a.length - 1), e);
+		bottom.setRelease(b + 1); //publishes the element to thieves
+		//Runs in O(1) time, amortized when the ring grows, with no CAS.
+	}
+
+	/**
+	 * Removes and returns the element at the bottom, the one pushed most recently. Owner thread only.
+	 * @return the bottom element, or null if the deque is empty (or a thief took the last one).
+	 */
+	@SuppressWarnings("unchecked")
+	public E pop(){
+		long b = bottom.getPlain() - 1;
+		Object[] a = array;
+		bottom.set(b); //a volatile write, so the read of top below cannot move before it
+		long t = top.get();
+		if(t > b){
+			bottom.setRelease(b + 1); //the deque was empty
+			return null;
+		}
+		int slot = (int) b & (a.length - 1);
+		E e = (E) a[slot];
+		if(t == b){
+			//The last element: thieves may be after it too, so take it the same way they do.
+			if(!top.compareAndSet(t, t + 1)){
+				e = null;
+			}
+			bottom.setRelease(b + 1);
+		}
+		if(e != null){
+			a[slot] = null; //so the element can be garbage collected
+		}
+		return e;
+		//Runs in O(1) time, with a CAS only for the last element.
+	}
+
+	/**
+	 * Removes and returns the element at the top, the oldest one. Safe to call from any thread. The ring keeps
+	 * referring to a stolen element until the owner pushes into its slot again.
+	 * @return the top element, or null if the deque is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public E steal(){
+		while(true){
+			long t = top.get();
+			long b = bottom.get();
+			if(t >= b){
+				return null;
+			}
+			Object[] a = array;
+			E e = (E) SLOT.getAcquire(a, (int) t & (a.length - 1));
+			if(top.compareAndSet(t, t + 1)){
+				//The slot is not cleared: once top has moved the owner may push into it at any time, even the same
+				//reference again, so a thief cannot tell its element from a new one. The next push overwrites it.
+				return e;
+			}
+			//Another thief, or the owner popping the last element, got there first.
+		}
+		//Runs in O(1) time apart from retries when thieves collide.
+	}
+
+	/**
+	 * Returns, but does not remove, the top element (null if empty). By the time the caller looks at it, it may
+	 * already have been stolen.
+	 * @return the top element
+	 */
+	@SuppressWarnings("unchecked")
+	public E front(){
+		long t = top.get();
+		long b = bottom.get();
+		if(t >= b){
+			return null;
+		}
+		Object[] a = array;
+		return (E) SLOT.getAcquire(a, (int) t & (a.length - 1));
+	}
+
+	/**
+	 * Inserts an element at the bottom; the same as push. Owner thread only.
+	 * @param e the object to be inserted.
+	 */
+	public void enqueue(E e){
+		push(e);
+	}
+
+	/**
+	 * Removes and returns the top element (null if empty); the same as steal. Safe to call from any thread.
+	 * @return the oldest element
+	 */
+	public E dequeue(){
+		return steal();
+	}
+
+	/**
+	 * Returns a weakly consistent iterator over the elements from the top to the bottom, without removing them.
+	 * It stops early at an element that has been taken since it was created.
+	 * @return an iterator over the elements.
+	 */
+	public Iterator<E> iterator(){
+		return new Iterator<E>(){
+			private long cursor = top.get();
+			private final long end = bottom.get();
+			private final Object[] a = array;
+			private E nextElement = advance();
+
+			@SuppressWarnings("unchecked")
+			private E advance(){
+				if(cursor >= end || cursor < top.get()){
+					return null;
+				}
+				return (E) SLOT.getAcquire(a, (int) cursor++ & (a.length - 1));
+			}
+
+			public boolean hasNext(){
+				return nextElement != null;
+			}
+
+			public E next(){
+				if(nextElement == null){
+					throw new NoSuchElementException();
+				}
+				E e = nextElement;
+				nextElement = advance();
+				return e;
+			}
+		};
+	}
+
+	//Copies the elements from top to bottom into a ring twice as big and publishes it. Each element keeps its
+	//counter value, so it only moves to counter & (new length - 1). Thieves still reading the old ring find the same
+	//elements there. Takes O(n) time.
+	private Object[] grow(Object[] a, long t, long b){
+		if(a.length == 1 << 30){
+			throw new IllegalStateException("Cannot add element. Deque is full");
+		}
+		Object[] bigger = new Object[2 * a.length];
+		for(long k=t;k<b;k++){
+			bigger[(int) k & (bigger.length - 1)] = a[(int) k & (a.length - 1)];
+		}
+		array = bigger;
+		return bigger;
+	}
+
+	public String toString(){
+		StringBuilder str = new StringBuilder();
+		str.append("{ ");
+		for(E element:this){
+			str.append(element + " ");
+		}
+		str.append("}");
+		return str.toString();
+	}
+}
@@ -0,0 +1,296 @@
+package eecs2011;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Small fork/join scheduler built on WorkStealingDeque. Each worker thread owns a deque: a task forked by a worker
+ * is pushed onto its own deque and, if nobody steals it first, popped again by the same worker, so most work never
+ * leaves the core that created it. An idle worker steals the oldest task of a random other worker, which tends to be
+ * the biggest piece of work left. Tasks submitted from outside the pool go through a shared LFQueue.
+ * A worker that joins a task that is not done yet does not block; it helps by running other tasks, starting with
+ * its own, until the joined task completes. Any number of outside threads can join the same task; they park on a
+ * small stack of waiters that is released when the task completes.
+ */
+public class WorkStealingPool implements AutoCloseable {
+
+	/**
+	 * A piece of work that returns a result and may fork subtasks and join them.
+	 * @param <V> the type of the result.
+	 */
+	public static abstract class Task<V>{
+		private volatile boolean done = false;
+		private V result;
+		private Throwable failure;
+		private volatile Waiter waiters; //outside threads parked in join, or DONE once the task has completed
+
+		/** Does the work of the task, possibly forking and joining subtasks. */
+		protected abstract V compute();
+
+		/**
+		 * Schedules the task to run asynchronously on the current worker's deque.
+		 * @return this task.
+		 * @throws IllegalStateException if the current thread is not a worker; use WorkStealingPool.submit instead.
+		 */
+		public final Task<V> fork(){
+			Thread current = Thread.currentThread();
+			if(!(current instanceof Worker)){
+				throw new IllegalStateException("fork must be called from a worker thread");
+			}
+			((Worker) current).deque.push(this);
+			return this;
+		}
+
+		/**
+		 * Waits for the task to complete and returns its result. A worker runs other tasks while it waits; any other
+		 * thread parks.
+		 * @return the result of compute.
+		 * @throws RuntimeException the exception compute threw, if it failed (errors are rethrown as well).
+		 * @throws CancellationException if the pool was closed before the task ran.
+		 */
+		public final V join(){
+			Thread current = Thread.currentThread();
+			if(current instanceof Worker){
+				Worker worker = (Worker) current;
+				while(!done){
+					if(!worker.runOneTask()){
+						Thread.onSpinWait(); //the task is running on another worker
+					}
+				}
+			}
+			else{
+				Waiter node = new Waiter(current);
+				while(!done){
+					Waiter head = waiters;
+					if(head == DONE){
+						break; //completed while this thread was getting ready to wait
+					}
+					node.next = head;
+					if(WAITERS.compareAndSet(this, head, node)){
+						while(!done){
+							LockSupport.park(this); //complete unparks every thread on the stack
+						}
+					}
+				}
+			}
+			if(failure instanceof RuntimeException){
+				throw (RuntimeException) failure;
+			}
+			if(failure instanceof Error){
+				throw (Error) failure;
+			}
+			return result;
+		}
+
+		/**
+		 * Returns whether the task has completed, normally or with an exception.
+		 * @return a boolean value.
+		 */
+		public final boolean isDone(){
+			return done;
+		}
+
+		//Runs compute and records its outcome, so that a failure is rethrown by join instead of killing the worker.
+		final void run(){
+			try{
+				result = compute();
+			}
+			catch(Throwable e){
+				failure = e;
+			}
+			complete();
+		}
+
+		//Completes the task without running it, so that whoever joins it gets a CancellationException.
+		final void cancel(){
+			failure = new CancellationException("Pool was closed before the task ran");
+			complete();
+		}
+
+		//Marks the task done and wakes every outside thread waiting in join.
+		private void complete(){
+			done = true; //a volatile write, so result and failure are visible to whoever sees done
+			Waiter w = (Waiter) WAITERS.getAndSet(this, DONE); //later joiners see DONE and do not park
+			for(;w != null;w = w.next){
+				LockSupport.unpark(w.thread);
+			}
+		}
+	}
+
+	//Node of a task's stack of parked joiners.
+	private static class Waiter{
+		private final Thread thread;
+		private Waiter next;
+
+		public Waiter(Thread thread){
+			this.thread = thread;
+		}
+	}
+
+	private static final Waiter DONE = new Waiter(null); //marks a stack that has been released
+	private static final VarHandle WAITERS;
+	static{
+		try{
+			WAITERS = MethodHandles.lookup().findVarHandle(Task.class, "waiters", Waiter.class);
+		}
+		catch(ReflectiveOperationException e){
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	//Worker thread owning one deque.
+	private static class Worker extends Thread{
+		private final WorkStealingPool pool;
+		private final WorkStealingDeque<Task<?>> deque = new WorkStealingDeque<Task<?>>();
+		private final int id;
+
+		public Worker(WorkStealingPool pool, int id){
+			super("eecs2011-worker-" + id);
+			this.pool = pool;
+			this.id = id;
+			setDaemon(true);
+		}
+
+		public void run(){
+			int idle = 0;
+			while(!pool.shutdown){
+				if(runOneTask()){
+					idle = 0;
+				}
+				else if(++idle < 64){
+					Thread.onSpinWait();
+				}
+				else{
+					LockSupport.parkNanos(50000); //nothing to do for a while, so stop burning the core
+				}
+			}
+			//Only this thread pushes onto its deque, so nothing can be added to it after this.
+			Task<?> task;
+			while((task = deque.pop()) != null){
+				task.cancel();
+			}
+		}
+
+		//Runs one task, taken from this worker's own deque first, then from a random other worker, then from the
+		//submission queue. Returns false if there was nothing to run.
+		private boolean runOneTask(){
+			Task<?> task = deque.pop();
+			if(task == null){
+				task = pool.steal(id);
+			}
+			if(task == null){
+				task = pool.submissions.poll();
+			}
+			if(task == null){
+				return false;
+			}
+			task.run();
+			return true;
+		}
+	}
+
+	private final Worker[] workers;
+	private final LFQueue<Task<?>> submissions = new LFQueue<Task<?>>(); //tasks from threads outside the pool
+	private volatile boolean shutdown = false;
+
+	//Constructors
+	public WorkStealingPool(){
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Starts a pool with the given number of worker threads.
+	 * @param parallelism the number of workers.
+	 */
+	public WorkStealingPool(int parallelism){
+		if(parallelism < 1){
+			throw new IllegalArgumentException("Illegal parallelism: " + parallelism);
+		}
+		workers = new Worker[parallelism];
+		for(int k=0;k<parallelism;k++){
+			workers[k] = new Worker(this, k);
+		}
+		for(Worker w:workers){
+			w.start();
+		}
+	}
+
+	//Methods
+
+	/**
+	 * Schedules a task on the pool. From a worker thread this is the same as task.fork().
+	 * @param task the task to run.
+	 * @return the task, so its result can be joined.
+	 * @throws IllegalStateException if the pool has been closed.
+	 */
+	public <V> Task<V> submit(Task<V> task){
+		if(shutdown){
+			throw new IllegalStateException("Pool is closed");
+		}
+		if(Thread.currentThread() instanceof Worker && ((Worker) Thread.currentThread()).pool == this){
+			return task.fork();
+		}
+		submissions.enqueue(task);
+		if(shutdown){
+			cancelSubmissions(); //close may have emptied the queue before the task reached it
+		}
+		return task;
+	}
+
+	/**
+	 * Runs a task on the pool and waits for its result.
+	 * @param task the task to run.
+	 * @return the result of the task.
+	 * @throws CancellationException if the pool is closed before the task runs.
+	 */
+	public <V> V invoke(Task<V> task){
+		return submit(task).join();
+	}
+
+	/**
+	 * Returns the number of worker threads.
+	 * @return the parallelism of the pool.
+	 */
+	public int parallelism(){
+		return workers.length;
+	}
+
+	/**
+	 * Stops the workers once they finish the task they are running. Tasks still queued are not run; they are
+	 * completed with a CancellationException instead, so no thread joining them waits forever.
+	 */
+	public void close(){
+		shutdown = true;
+		cancelSubmissions();
+		for(Worker w:workers){
+			LockSupport.unpark(w); //each worker cancels the tasks left on its own deque as it stops
+		}
+	}
+
+	//Cancels every task waiting in the submission queue.
+	private void cancelSubmissions(){
+		Task<?> task;
+		while((task = submissions.poll()) != null){
+			task.cancel();
+		}
+	}
+
+	//Steals a task from a worker other than the given one, trying each of them once starting at a random one.
+	private Task<?> steal(int thief){
+		int n = workers.length;
+		int start = ThreadLocalRandom.current().nextInt(n);
+		for(int k=0;k<n;k++){
+			int victim = (start + k) % n;
+			if(victim != thief){
+				Task<?> task = workers[victim].deque.steal();
+				if(task != null){
+					return task;
+				}
+			}
+		}
+		return null;
+	}
+}